@@ -0,0 +1,375 @@
+import java.util.concurrent.atomic.AtomicInteger;
+
+class Board2 {
+  public static boolean VERIFY = false;
+  public Board2(int rows, int cols, int max) {
+    this.rows = rows;
+    this.cols = cols;
+    this.min = 2;
+    this.max = max;
+    size = rows * cols;
+    stride = cols;
+    deltas = new int[]{-stride - 1, -stride, -stride + 1, -1, 1, stride - 1, stride, stride + 1};
+    board = new int[size];
+    counts = new int[size];
+    candPrev = new int[size + max + 1];
+    candNext = new int[size + max + 1];
+    candList = new int[size]; // TODO: figure out max candList size?
+    dirty = new int[size];
+    dirtyMark = new boolean[size];
+    pathPos = new int[size];
+    pathValue = new int[size];
+    bestPos = new int[size];
+    bestValue = new int[size];
+    frameNext = new int[max + 2];
+    frameEnd = new int[max + 2];
+    framePath = new int[max + 2];
+    for (int i = 0; i <= max; i++) {
+      candPrev[size + i] = size + i;
+      candNext[size + i] = size + i;
+    }
+  }
+
+  // back to the state of a new board; unlinked cells point at 0 like in a new board
+  void clear(int pos) {
+    board[pos] = 0;
+    counts[pos] = 0;
+    candPrev[pos] = 0;
+    candNext[pos] = 0;
+  }
+
+  // clear the board for the next initial board, touching only cells around placed stones
+  void reset() {
+    for (int i = 0; i < dirtyCount; i++) {
+      int pos = dirty[i];
+      dirtyMark[pos] = false;
+      clear(pos);
+      for (int delta : deltas) {
+        clear(pos + delta);
+      }
+    }
+    dirtyCount = 0;
+    for (int i = 0; i <= max; i++) {
+      candPrev[size + i] = size + i;
+      candNext[size + i] = size + i;
+    }
+    candListPtr = 0;
+    min = 2;
+    maxFound = 0;
+    searchedPositions = 0;
+    prunedBranches = 0;
+    transpositions = 0;
+    transpositionProbes = 0;
+    pathLength = 0;
+    bestLength = 0;
+  }
+
+  // a stone of value v at chebyshev distance d from all ones has at least two
+  // distinct neighbours > 1, the smaller one < v / 2 and at distance >= d - 1.
+  // so v >= f(d) with f(1) = 2, f(d) = 2 * f(d - 1) + 1: 2, 5, 11, 23, 47, 95, 191, ..
+  // returns the largest distance from the ones a stone <= max can have.
+  static int growthBound(int max) {
+    int d = 1;
+    for (int f = 2; 2 * f + 1 <= max; f = 2 * f + 1) {
+      d++;
+    }
+    return d;
+  }
+
+  // border needed around the ones: stones up to growthBound, their counts one
+  // further, and verify() looks at neighbours of those. the outermost cells never
+  // get a stone, so they act as sentinels and place() needs no bounds checks.
+  static int margin(int max) {
+    return growthBound(max) + 2;
+  }
+
+  int rows, cols, size, stride;
+  int[] deltas;
+  int[] board;
+  int[] counts;
+
+  int[] candPrev;
+  int[] candNext;
+
+  int[] candList;
+  int candListPtr;
+
+  // every position a stone was ever placed on since the last reset()
+  int[] dirty;
+  int dirtyCount;
+  boolean[] dirtyMark;
+
+  int min, max, maxFound;
+  long searchedPositions;
+  long prunedBranches; // by ProvingBoard2
+  long transpositions, transpositionProbes; // by TranspositionBoard2
+
+  // best value of all boards, raised as soon as this board beats it (when set)
+  AtomicInteger best;
+  // when set, searches from splitBase to splitUntil ask it before each candidate
+  // whether to hand off branches. for that they keep where their remaining
+  // candidates are in candList and the path length they started with.
+  Splitter splitter;
+  int splitBase, splitUntil;
+  int[] frameNext, frameEnd, framePath;
+
+  // placements (pos, value) in order, and a copy of them whenever maxFound grows
+  int[] pathPos, pathValue;
+  int pathLength;
+  int[] bestPos, bestValue;
+  int bestLength;
+
+  int pos(int row, int col) {
+    return row * stride + col;
+  }
+  public int row(int pos) {
+    return pos / stride;
+  }
+  public int col(int pos) {
+    return pos % stride;
+  }
+
+  int midPos(int dr, int dc) {
+    return pos(rows / 2 + dr, cols / 2 + dc);
+  }
+  int midRow(int pos) {
+    return pos / stride - rows / 2;
+  }
+  int midCol(int pos) {
+    return pos % stride - cols / 2;
+  }
+
+  // place value at pos, use negative value to remove
+  void place(int pos, int value) {
+    for (int delta : deltas) {
+      int neigh = pos + delta;
+      if (board[neigh] == 0) {
+        unlink(neigh);
+      }
+    }
+    if (board[pos] == 0) {
+      unlink(pos);
+    }
+    board[pos] += value;
+    if (board[pos] == 0) {
+      link(pos);
+      pathLength--;
+    } else {
+      pathPos[pathLength] = pos;
+      pathValue[pathLength++] = value;
+      if (!dirtyMark[pos]) {
+        dirtyMark[pos] = true;
+        dirty[dirtyCount++] = pos;
+      }
+    }
+    for (int delta : deltas) {
+      int neigh = pos + delta;
+      counts[neigh] += value;
+      if (board[neigh] == 0) {
+        link(neigh);
+      }
+    }
+    //System.out.printf("place %d,%d %d\n", midRow(pos), midCol(pos), value);
+    //print();
+    if (board[pos] > maxFound) {
+      foundMax(board[pos]);
+    }
+  }
+
+  // value was just placed, higher than maxFound: keep its path for bestBoard()
+  void foundMax(int value) {
+    maxFound = value;
+    bestLength = pathLength;
+    System.arraycopy(pathPos, 0, bestPos, 0, pathLength);
+    System.arraycopy(pathValue, 0, bestValue, 0, pathLength);
+    if (best != null && maxFound > best.get()) {
+      best.accumulateAndGet(maxFound, Math::max);
+    }
+  }
+
+  // replay the placements that reached maxFound on a new board
+  Board2 bestBoard() {
+    Board2 b = new Board2(rows, cols, max);
+    for (int i = 0; i < bestLength; i++) {
+      b.place(bestPos[i], bestValue[i]);
+    }
+    return b;
+  }
+
+  void unlink(int pos) {
+    int count = counts[pos];
+    if (count > max) {
+      return;
+    }
+    candNext[candPrev[pos]] = candNext[pos];
+    candPrev[candNext[pos]] = candPrev[pos];
+  }
+
+  void link(int pos) {
+    int count = counts[pos];
+    if (count > max) {
+      return;
+    }
+    candPrev[pos] = size + count;
+    candNext[pos] = candNext[size + count];
+    candPrev[candNext[pos]] = pos;
+    candNext[size + count] = pos;
+  }
+
+  void print() {
+    if (VERIFY && !inVerify) {
+      verify();
+    }
+    int minRow = rows, minCol = cols, maxRow = 0, maxCol = 0;
+    for (int row = 0; row < rows; row++) {
+      for (int col = 0; col < cols; col++) {
+        int pos = pos(row, col);
+        if (board[pos] > 0) {
+          minRow = Math.min(minRow, row);
+          minCol = Math.min(minCol, col);
+          maxRow = Math.max(maxRow, row);
+          maxCol = Math.max(maxCol, col);
+        }
+      }
+    }
+    for (int row = minRow; row <= maxRow; row++) {
+      for (int col = minCol; col <= maxCol; col++) {
+        int pos = pos(row, col);
+        if (board[pos] > 0) {
+          System.out.printf("%3d", board[pos]);
+        } else {
+          System.out.printf("  .");
+        }
+      }
+      System.out.println();
+    }
+  }
+
+  // verify() function, to check all counts, candidate lists, and placements on board!
+  boolean inVerify;
+  void verify() {
+    inVerify = true;
+    int minRow = rows, minCol = cols, maxRow = 0, maxCol = 0;
+    for (int row = 0; row < rows; row++) {
+      for (int col = 0; col < cols; col++) {
+        int pos = pos(row, col);
+        if (board[pos] > 0) {
+          minRow = Math.min(minRow, row);
+          minCol = Math.min(minCol, col);
+          maxRow = Math.max(maxRow, row);
+          maxCol = Math.max(maxCol, col);
+        }
+      }
+    }
+    for (int row = minRow - 1; row <= maxRow + 1; row++) {
+      for (int col = minCol - 1; col <= maxCol + 1; col++) {
+        int pos = pos(row, col);
+        if (board[pos] == 0) {
+          int count = 0;
+          for (int delta : deltas) {
+            count += board[pos + delta];
+          }
+          if (counts[pos] != count) {
+            print();
+            System.out.printf("count mismatch %d != %d at %d,%d\n", counts[pos], count, row - minRow, col - minCol);
+            throw new RuntimeException("count mismatch");
+          }
+          if (count >= min && count <= max) {
+            boolean found = false;
+            for (int candPos = candNext[size + count]; candPos < size; candPos = candNext[candPos]) {
+              if (candPos == pos) {
+                found = true;
+                break;
+              }
+            }
+            if (!found) {
+              print();
+              System.out.printf("count not found among candidates for %d at %d,%d\n", count, row - minRow, col - minCol);
+              for (int candPos = candNext[size + count]; candPos < size; candPos = candNext[candPos]) {
+                System.out.printf(" cand %d,%d", row(candPos) - minRow, col(candPos) - minCol);
+              }
+              System.out.println();
+              throw new RuntimeException("candidate missing mismatch");
+            }
+          }
+        }
+      }
+    }
+    for (int count = min; count < max; count++) {
+      for (int pos = candNext[size + count]; pos != size + count; pos = candNext[pos]) {
+        if (board[pos] != 0) {
+          print();
+          System.out.printf("placed %d in candidates for %d at %d,%d", board[pos], count, row(pos) - minRow, col(pos) - minCol);
+          for (int candPos = candNext[size + count]; candPos < size; candPos = candNext[candPos]) {
+            System.out.printf(" cand %d,%d", row(candPos) - minRow, col(candPos) - minCol);
+          }
+          System.out.println();
+          throw new RuntimeException("candidate already placed mismatch");
+
+        }
+        if (board[pos] == 0 && counts[pos] != count && count >= min) {
+          print();
+          System.out.printf("wrong count %d among candidates for %d at %d,%d", counts[pos], count, row(pos) - minRow, col(pos) - minCol);
+          for (int candPos = candNext[size + count]; candPos < size; candPos = candNext[candPos]) {
+            System.out.printf(" cand %d,%d", row(candPos) - minRow, col(candPos) - minCol);
+          }
+          System.out.println();
+          throw new RuntimeException("candidate wrong count mismatch");
+        }
+      }
+    }
+    inVerify = false;
+  }
+
+  // appends the candidates for from to candList, returns the new end
+  int candidates(int from) {
+    for (int pos = candNext[size + from]; pos < size; pos = candNext[pos]) {
+      candList[candListPtr++] = pos;
+    }
+    return candListPtr;
+  }
+
+  // the frame of from, with candList[next .. end) left to try, may be split off
+  // now. returns the end left to this search
+  int offerSplit(int from, int next, int end) {
+    frameNext[from] = next;
+    frameEnd[from] = end;
+    framePath[from] = pathLength;
+    if (splitter.wantsSplit()) {
+      splitter.split(this, from);
+    }
+    return frameEnd[from];
+  }
+
+  // every value goes on exactly one cell, in order, so the stones on the board
+  // spell out the path that placed them. no two paths reach the same board, not
+  // even where separate groups of ones grow in different interleavings: moving
+  // value v from one group to the other changes both groups' futures. so there is
+  // nothing for a partial-order reduction to merge (and --tt, which only keys on
+  // what the future depends on, finds no transpositions for n = 3..5).
+  int search(int from) {
+    if (VERIFY) {
+      verify();
+    }
+    int candListBegin = candListPtr;
+    int candListEnd = candidates(from);
+    //System.out.printf("search %d candidates %d\n", from, candListEnd - candListBegin);
+    for (int candListI = candListBegin; candListI < candListEnd; candListI++) {
+      int pos = candList[candListI];
+      if (from <= splitUntil) {
+        candListEnd = offerSplit(from, candListI + 1, candListEnd);
+      }
+      min = 2; //from + 1;
+      place(pos, from);
+      searchedPositions++;
+      search(from + 1);
+      min = 2; //from + 1;
+      place(pos, -from);
+      if (from <= splitUntil) {
+        candListEnd = frameEnd[from]; // a split may have taken the rest
+      }
+    }
+    candListPtr = candListBegin;
+    return maxFound;
+  }
+}
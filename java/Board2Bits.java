@@ -0,0 +1,164 @@
+// Board2 with bitsets instead of the candidate lists: taken has a bit per
+// occupied cell, cand[count * words ..] one per empty cell with that count
+// (2..max). a search lists its candidates by scanning the words of its count that
+// lie between the first and last row touched so far, with numberOfTrailingZeros.
+// candidates come in position order rather than list order, so the same positions
+// are searched but the first best board found can be another one.
+class Board2Bits extends Board2 {
+  final int words;
+  final long[] taken;
+  final long[] cand;
+  int lowWord, highWord; // cand words that can have bits
+  final int d0, d1, d2, d3, d4, d5, d6, d7;
+
+  public Board2Bits(int rows, int cols, int max) {
+    super(rows, cols, max);
+    words = (size + 63) >>> 6;
+    taken = new long[words];
+    cand = new long[(max + 1) * words];
+    lowWord = words;
+    highWord = -1;
+    d0 = deltas[0];
+    d1 = deltas[1];
+    d2 = deltas[2];
+    d3 = deltas[3];
+    d4 = deltas[4];
+    d5 = deltas[5];
+    d6 = deltas[6];
+    d7 = deltas[7];
+  }
+
+  @Override
+  void reset() {
+    for (int i = 0; i < dirtyCount; i++) {
+      int pos = dirty[i];
+      clearCell(pos);
+      for (int delta : deltas) {
+        clearCell(pos + delta);
+      }
+    }
+    lowWord = words;
+    highWord = -1;
+    super.reset();
+  }
+
+  void clearCell(int pos) {
+    taken[pos >>> 6] &= ~(1L << pos);
+    int count = counts[pos];
+    if (count >= 2 && count <= max) {
+      cand[count * words + (pos >>> 6)] &= ~(1L << pos);
+    }
+  }
+
+  @Override
+  void place(int pos, int value) {
+    if (value > 0) {
+      apply(pos, value);
+    } else {
+      undo(pos, -value);
+    }
+  }
+
+  // the count of an empty neighbour changes by value, moving its bit to the new count
+  void neighbour(int pos, int value) {
+    int count = counts[pos];
+    counts[pos] = count + value;
+    if ((taken[pos >>> 6] & 1L << pos) != 0) {
+      return;
+    }
+    long bit = 1L << pos;
+    int word = pos >>> 6;
+    if (count >= 2 && count <= max) {
+      cand[count * words + word] &= ~bit;
+    }
+    count += value;
+    if (count >= 2 && count <= max) {
+      cand[count * words + word] |= bit;
+    }
+  }
+
+  // a stone of value on the empty cell pos
+  void apply(int pos, int value) {
+    int count = counts[pos];
+    if (count >= 2 && count <= max) {
+      cand[count * words + (pos >>> 6)] &= ~(1L << pos);
+    }
+    taken[pos >>> 6] |= 1L << pos;
+    board[pos] = value;
+    pathPos[pathLength] = pos;
+    pathValue[pathLength++] = value;
+    if (!dirtyMark[pos]) {
+      dirtyMark[pos] = true;
+      dirty[dirtyCount++] = pos;
+      lowWord = Math.min(lowWord, (pos + d0) >>> 6);
+      highWord = Math.max(highWord, (pos + d7) >>> 6);
+    }
+    neighbour(pos + d0, value);
+    neighbour(pos + d1, value);
+    neighbour(pos + d2, value);
+    neighbour(pos + d3, value);
+    neighbour(pos + d4, value);
+    neighbour(pos + d5, value);
+    neighbour(pos + d6, value);
+    neighbour(pos + d7, value);
+    if (value > maxFound) {
+      foundMax(value);
+    }
+  }
+
+  // takes the stone of value off pos again
+  void undo(int pos, int value) {
+    taken[pos >>> 6] &= ~(1L << pos);
+    board[pos] = 0;
+    int count = counts[pos];
+    if (count >= 2 && count <= max) {
+      cand[count * words + (pos >>> 6)] |= 1L << pos;
+    }
+    pathLength--;
+    neighbour(pos + d0, -value);
+    neighbour(pos + d1, -value);
+    neighbour(pos + d2, -value);
+    neighbour(pos + d3, -value);
+    neighbour(pos + d4, -value);
+    neighbour(pos + d5, -value);
+    neighbour(pos + d6, -value);
+    neighbour(pos + d7, -value);
+  }
+
+  // counts as in Board2.verify(), then the bits against board and counts
+  @Override
+  void verify() {
+    for (int pos = 0; pos < size; pos++) {
+      boolean isTaken = (taken[pos >>> 6] & 1L << pos) != 0;
+      if (isTaken != (board[pos] != 0)) {
+        throw new RuntimeException("taken mismatch at " + row(pos) + "," + col(pos));
+      }
+      for (int count = 2; count <= max; count++) {
+        boolean isCand = (cand[count * words + (pos >>> 6)] & 1L << pos) != 0;
+        if (isCand != (board[pos] == 0 && counts[pos] == count)) {
+          throw new RuntimeException("candidate mismatch for " + count + " at " + row(pos) + "," + col(pos));
+        }
+      }
+      if (board[pos] == 0 && counts[pos] > 0) {
+        int count = 0;
+        for (int delta : deltas) {
+          count += board[pos + delta];
+        }
+        if (counts[pos] != count) {
+          throw new RuntimeException("count mismatch at " + row(pos) + "," + col(pos));
+        }
+      }
+    }
+  }
+
+  // from the bitset of from instead of the list
+  @Override
+  int candidates(int from) {
+    for (int w = lowWord, base = from * words; w <= highWord; w++) {
+      for (long bits = cand[base + w]; bits != 0; bits &= bits - 1) {
+        candList[candListPtr++] = w << 6 | Long.numberOfTrailingZeros(bits);
+      }
+    }
+    return candListPtr;
+  }
+}
@@ -0,0 +1,140 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// Board2 searching in one loop over an explicit stack instead of recursing. the
+// frame of the search at value from is candList[frameBegin[from] .. frameEnd[from]),
+// next to try at frameNext[from], with the path length it started with in
+// framePath[from]; the stones of frames base .. top - 1 are on the board. that is
+// all the state of a running search, so run() can stop after a number of positions
+// and carry on in the next call, and split() works on the same frames as in Board2.
+class Board2Iterative extends Board2 {
+  int[] frameBegin;
+  int base; // from of the search started by start()
+  int top; // the innermost frame
+
+  public Board2Iterative(int rows, int cols, int max) {
+    super(rows, cols, max);
+    frameBegin = new int[max + 2];
+  }
+
+  // a new frame for the candidates of from
+  void open(int from) {
+    if (VERIFY) {
+      verify();
+    }
+    frameBegin[from] = candListPtr;
+    frameEnd[from] = candidates(from);
+    frameNext[from] = frameBegin[from];
+    framePath[from] = pathLength;
+  }
+
+  void start(int from) {
+    base = top = from;
+    open(from);
+  }
+
+  // searches on until done (true) or until budget more positions are searched (false)
+  boolean run(long budget) {
+    long start = searchedPositions;
+    while (true) {
+      int from = top;
+      if (frameNext[from] < frameEnd[from]) {
+        int pos = candList[frameNext[from]++];
+        if (from <= splitUntil && splitter.wantsSplit()) {
+          splitter.split(this, from);
+        }
+        place(pos, from);
+        searchedPositions++;
+        top = from + 1;
+        open(top);
+        if (searchedPositions - start >= budget) {
+          return false;
+        }
+      } else {
+        candListPtr = frameBegin[from];
+        if (from == base) {
+          return true;
+        }
+        top = from - 1;
+        place(candList[frameNext[top] - 1], -top);
+      }
+    }
+  }
+
+  // the running search as rows and cols, so a board of any size can restore it:
+  //   long searchedPositions, int maxFound, int bestLength, bestLength * (int row << 16 | col, int value),
+  //   int base, int top, then per frame base .. top: int remaining, for frames below
+  //   top the cell of the stone it placed, and the cells of its remaining candidates.
+  // cells are kept rather than indexes into the frame, as candidate lists come in
+  // another order after a restart.
+  ByteBuffer capture() {
+    int bytes = 8 + 4 + 4 + 8 * bestLength + 4 + 4;
+    for (int from = base; from <= top; from++) {
+      bytes += 4 + (from < top ? 4 : 0) + 4 * (frameEnd[from] - frameNext[from]);
+    }
+    ByteBuffer out = ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    out.putLong(searchedPositions).putInt(maxFound).putInt(bestLength);
+    for (int i = 0; i < bestLength; i++) {
+      out.putInt(cell(bestPos[i])).putInt(bestValue[i]);
+    }
+    out.putInt(base).putInt(top);
+    for (int from = base; from <= top; from++) {
+      out.putInt(frameEnd[from] - frameNext[from]);
+      if (from < top) {
+        out.putInt(cell(candList[frameNext[from] - 1]));
+      }
+      for (int i = frameNext[from]; i < frameEnd[from]; i++) {
+        out.putInt(cell(candList[i]));
+      }
+    }
+    out.flip();
+    return out;
+  }
+
+  // continues a captured search on this board, which has the same ones placed
+  void restore(ByteBuffer in) {
+    searchedPositions = in.getLong();
+    maxFound = in.getInt();
+    bestLength = in.getInt();
+    for (int i = 0; i < bestLength; i++) {
+      bestPos[i] = pos(in.getInt());
+      bestValue[i] = in.getInt();
+    }
+    if (best != null) {
+      best.accumulateAndGet(maxFound, Math::max);
+    }
+    base = in.getInt();
+    top = in.getInt();
+    for (int from = base; from <= top; from++) {
+      int remaining = in.getInt();
+      frameBegin[from] = candListPtr;
+      framePath[from] = pathLength;
+      int placed = from < top ? pos(in.getInt()) : -1;
+      if (from < top) {
+        candList[candListPtr++] = placed;
+      }
+      frameNext[from] = candListPtr;
+      for (int i = 0; i < remaining; i++) {
+        candList[candListPtr++] = pos(in.getInt());
+      }
+      frameEnd[from] = candListPtr;
+      if (from < top) {
+        place(placed, from);
+      }
+    }
+  }
+
+  int cell(int pos) {
+    return row(pos) << 16 | col(pos);
+  }
+  int pos(int cell) {
+    return pos(cell >>> 16, cell & 0xffff);
+  }
+
+  @Override
+  int search(int from) {
+    start(from);
+    run(Long.MAX_VALUE);
+    return maxFound;
+  }
+}
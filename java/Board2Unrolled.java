@@ -0,0 +1,139 @@
+// Board2 with the value and count of a cell side by side in one array (cell[2 * pos]
+// and cell[2 * pos + 1], so one cache line holds both for a neighbour), the 8
+// neighbour updates written out, and separate apply() / undo() for placing and
+// taking back a stone, which Board2.search() reaches through place(). candidate
+// lists and their order are exactly Board2's, so searches visit the same positions
+// in the same order.
+// board[] and counts[] are only filled in for verify().
+class Board2Unrolled extends Board2 {
+  final int[] cell;
+  // neighbour offsets in cell[]
+  final int o0, o1, o2, o3, o4, o5, o6, o7;
+
+  public Board2Unrolled(int rows, int cols, int max) {
+    super(rows, cols, max);
+    cell = new int[2 * size];
+    o0 = 2 * deltas[0];
+    o1 = 2 * deltas[1];
+    o2 = 2 * deltas[2];
+    o3 = 2 * deltas[3];
+    o4 = 2 * deltas[4];
+    o5 = 2 * deltas[5];
+    o6 = 2 * deltas[6];
+    o7 = 2 * deltas[7];
+  }
+
+  @Override
+  void reset() {
+    for (int i = 0; i < dirtyCount; i++) {
+      int c = 2 * dirty[i];
+      clearCell(c);
+      clearCell(c + o0);
+      clearCell(c + o1);
+      clearCell(c + o2);
+      clearCell(c + o3);
+      clearCell(c + o4);
+      clearCell(c + o5);
+      clearCell(c + o6);
+      clearCell(c + o7);
+    }
+    super.reset();
+  }
+
+  void clearCell(int c) {
+    cell[c] = 0;
+    cell[c + 1] = 0;
+  }
+
+  @Override
+  void place(int pos, int value) {
+    if (value > 0) {
+      apply(pos, value);
+    } else {
+      undo(pos, -value);
+    }
+  }
+
+  // the count of an empty neighbour changes by value, moving it to the head of its new list
+  void neighbour(int c, int value) {
+    int count = cell[c + 1];
+    if (cell[c] != 0) {
+      cell[c + 1] = count + value;
+      return;
+    }
+    int pos = c >> 1;
+    if (count <= max) {
+      candNext[candPrev[pos]] = candNext[pos];
+      candPrev[candNext[pos]] = candPrev[pos];
+    }
+    count += value;
+    cell[c + 1] = count;
+    if (count <= max) {
+      int head = size + count;
+      candPrev[pos] = head;
+      candNext[pos] = candNext[head];
+      candPrev[candNext[pos]] = pos;
+      candNext[head] = pos;
+    }
+  }
+
+  // a stone of value on the empty cell pos
+  void apply(int pos, int value) {
+    int c = 2 * pos;
+    int count = cell[c + 1];
+    if (count <= max) {
+      candNext[candPrev[pos]] = candNext[pos];
+      candPrev[candNext[pos]] = candPrev[pos];
+    }
+    cell[c] = value;
+    pathPos[pathLength] = pos;
+    pathValue[pathLength++] = value;
+    if (!dirtyMark[pos]) {
+      dirtyMark[pos] = true;
+      dirty[dirtyCount++] = pos;
+    }
+    neighbour(c + o0, value);
+    neighbour(c + o1, value);
+    neighbour(c + o2, value);
+    neighbour(c + o3, value);
+    neighbour(c + o4, value);
+    neighbour(c + o5, value);
+    neighbour(c + o6, value);
+    neighbour(c + o7, value);
+    if (value > maxFound) {
+      foundMax(value);
+    }
+  }
+
+  // takes the stone of value off pos again
+  void undo(int pos, int value) {
+    int c = 2 * pos;
+    cell[c] = 0;
+    int count = cell[c + 1];
+    if (count <= max) {
+      int head = size + count;
+      candPrev[pos] = head;
+      candNext[pos] = candNext[head];
+      candPrev[candNext[pos]] = pos;
+      candNext[head] = pos;
+    }
+    pathLength--;
+    neighbour(c + o0, -value);
+    neighbour(c + o1, -value);
+    neighbour(c + o2, -value);
+    neighbour(c + o3, -value);
+    neighbour(c + o4, -value);
+    neighbour(c + o5, -value);
+    neighbour(c + o6, -value);
+    neighbour(c + o7, -value);
+  }
+
+  @Override
+  void verify() {
+    for (int pos = 0; pos < size; pos++) {
+      board[pos] = cell[2 * pos];
+      counts[pos] = cell[2 * pos + 1];
+    }
+    super.verify();
+  }
+}
@@ -0,0 +1,37 @@
+// one initial board, searched in one or more parts (when branches are split off).
+// the parts merge into it; the last one reports it.
+class BoardJob {
+  long index;
+  long hi, lo; // PackedOnes
+  int parts = 1;
+  boolean forked; // ever had branches split off
+  boolean snapshotted; // has a Snapshots file
+  int maxFound;
+  long searchedPositions;
+  Board2 bestBoard; // when maxFound reached the print threshold
+
+  public BoardJob(long index, long hi, long lo) {
+    this.index = index;
+    this.hi = hi;
+    this.lo = lo;
+  }
+
+  synchronized void fork() {
+    parts++;
+  }
+  synchronized void unfork() {
+    parts--;
+  }
+
+  // true when b was the last part
+  synchronized boolean merge(Board2 b, int printThres) {
+    searchedPositions += b.searchedPositions;
+    if (b.maxFound > maxFound) {
+      maxFound = b.maxFound;
+      if (maxFound >= printThres) {
+        bestBoard = b.bestBoard();
+      }
+    }
+    return --parts == 0;
+  }
+}
@@ -0,0 +1,159 @@
+import java.util.Arrays;
+
+// symmetry-minimal (canonical) form of a board under the 8 symmetries of the
+// square, without allocating: coordinates are unpacked once, the 8 images use
+// precomputed transform tables, only images that can still win are sorted (with
+// a sorting network) and compared element by element. not thread safe.
+class Canonicalizer {
+  static final int MAX = PackedOnes.MAX_ONES + 1;
+
+  // transform t: row' = (swap ? col : row), col' = (swap ? row : col), then
+  // mirrored as max - x where flip is set, in the order of SteppingOnes.isSymmetryMinimal
+  static final boolean[] SWAP = new boolean[8], FLIP_ROW = new boolean[8], FLIP_COL = new boolean[8];
+  static {
+    int t = 0;
+    for (int rf = -1; rf <= 1; rf += 2) {
+      for (int cf = -1; cf <= 1; cf += 2) {
+        for (int rc = -1; rc <= 1; rc += 2) {
+          SWAP[t] = rc < 0;
+          // flips apply before the swap in isSymmetryMinimal, so they follow the swap here
+          FLIP_ROW[t] = rc < 0 ? cf < 0 : rf < 0;
+          FLIP_COL[t] = rc < 0 ? rf < 0 : cf < 0;
+          t++;
+        }
+      }
+    }
+  }
+
+  // compare-exchange pairs of Batcher's odd-even merge sort, per n
+  static final int[][] NETWORK = new int[MAX + 1][];
+  static {
+    for (int n = 0; n <= MAX; n++) {
+      int p2 = 1;
+      while (p2 < n) {
+        p2 *= 2;
+      }
+      int[] pairs = new int[2 * p2 * p2];
+      int m = 0;
+      for (int p = 1; p < p2; p *= 2) {
+        for (int k = p; k >= 1; k /= 2) {
+          for (int j = k % p; j + k < p2; j += 2 * k) {
+            for (int i = 0; i < k && i + j + k < p2; i++) {
+              int a = i + j, b = i + j + k;
+              // missing elements sort last, so comparators touching them are dropped
+              if ((a / (2 * p)) == (b / (2 * p)) && b < n) {
+                pairs[m++] = a;
+                pairs[m++] = b;
+              }
+            }
+          }
+        }
+      }
+      NETWORK[n] = Arrays.copyOf(pairs, m);
+    }
+  }
+
+  int[] rows = new int[MAX], cols = new int[MAX];
+  int[] img = new int[MAX], best = new int[MAX];
+  int n;
+
+  // canonical image of a[0..n) (positions as in SteppingOnes) into best[0..n)
+  // as sorted codes row << 6 | col. returns true if a, sorted, is already canonical.
+  boolean canonicalize(int[] a, int n) {
+    this.n = n;
+    int maxRow = 0, maxCol = 0;
+    for (int i = 0; i < n; i++) {
+      rows[i] = SteppingOnes.row(a[i]);
+      cols[i] = SteppingOnes.col(a[i]);
+      maxRow = Math.max(maxRow, rows[i]);
+      maxCol = Math.max(maxCol, cols[i]);
+    }
+    if (maxRow > PackedOnes.MAX_COORD || maxCol > PackedOnes.MAX_COORD) {
+      throw new IllegalArgumentException("coordinates out of range for canonicalize: " + maxRow + "," + maxCol);
+    }
+    // the smallest first element decides, so find it for every image first
+    int bestFirst = Integer.MAX_VALUE;
+    int firsts = 0; // bit t: image t starts with bestFirst
+    for (int t = 0; t < 8; t++) {
+      int first = Integer.MAX_VALUE;
+      for (int i = 0; i < n; i++) {
+        first = Math.min(first, code(t, i, maxRow, maxCol));
+      }
+      if (first < bestFirst) {
+        bestFirst = first;
+        firsts = 1 << t;
+      } else if (first == bestFirst) {
+        firsts |= 1 << t;
+      }
+    }
+    boolean identityBest = false, haveBest = false;
+    for (int t = 0; t < 8; t++) {
+      if ((firsts & 1 << t) == 0) {
+        continue;
+      }
+      for (int i = 0; i < n; i++) {
+        img[i] = code(t, i, maxRow, maxCol);
+      }
+      sort(img, n);
+      int c = haveBest ? compare(img, best, n) : -1;
+      if (c < 0) {
+        System.arraycopy(img, 0, best, 0, n);
+        haveBest = true;
+        identityBest = t == 7;
+      } else if (c == 0 && t == 7) {
+        identityBest = true;
+      }
+    }
+    return identityBest;
+  }
+
+  int code(int t, int i, int maxRow, int maxCol) {
+    int row = SWAP[t] ? cols[i] : rows[i];
+    int col = SWAP[t] ? rows[i] : cols[i];
+    if (FLIP_ROW[t]) { row = (SWAP[t] ? maxCol : maxRow) - row; }
+    if (FLIP_COL[t]) { col = (SWAP[t] ? maxRow : maxCol) - col; }
+    return row << 6 | col;
+  }
+
+  static void sort(int[] a, int n) {
+    int[] pairs = NETWORK[n];
+    for (int k = 0; k < pairs.length; k += 2) {
+      int x = a[pairs[k]], y = a[pairs[k + 1]];
+      if (x > y) {
+        a[pairs[k]] = y;
+        a[pairs[k + 1]] = x;
+      }
+    }
+  }
+
+  static int compare(int[] a, int[] b, int n) {
+    for (int i = 0; i < n; i++) {
+      if (a[i] != b[i]) {
+        return a[i] < b[i] ? -1 : 1;
+      }
+    }
+    return 0;
+  }
+
+  long hi() {
+    long hi = (long) n << 60;
+    for (int i = 0; i < n && i < 5; i++) {
+      hi |= (long) best[i] << (48 - 12 * i);
+    }
+    return hi;
+  }
+  long lo() {
+    long lo = 0;
+    for (int i = 5; i < n; i++) {
+      lo |= (long) best[i] << (48 - 12 * (i - 5));
+    }
+    return lo;
+  }
+
+  // canonical image as SteppingOnes positions
+  void bestTo(int[] out) {
+    for (int i = 0; i < n; i++) {
+      out[i] = SteppingOnes.pos(best[i] >>> 6, best[i] & 0x3f);
+    }
+  }
+}
@@ -0,0 +1,236 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+// append-only binary log of finished initial boards, so long runs can be resumed.
+//
+// record (little endian, 20 bytes): long index, int maxFound, long searchedPositions
+//
+// records are buffered and written in batches; a crash loses at most the last
+// unflushed batch (those boards are simply searched again). a torn record at the
+// end of the file is cut off when reopening.
+//
+// with a results file attached, a board's results record is written along with its
+// log record, and results are flushed first. the results file then holds at least
+// the records of the log, in the same order, and is cut back to them on resume.
+class CheckpointLog {
+  static final int RECORD_SIZE = 20;
+  static final int BATCH_RECORDS = 4096;
+  static final long FLUSH_NANOS = 10_000_000_000L;
+
+  final Path path;
+  FileChannel channel;
+  ByteBuffer batch = ByteBuffer.allocateDirect(BATCH_RECORDS * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+  long lastFlushNanos = System.nanoTime();
+
+  long records; // in the log, a board logged twice counts twice
+  ResultsWriter results;
+
+  // restored from the log
+  long boards, searchedPositions, maxPositionsPerBoard;
+  int maxFound;
+  Set<Long> bestIndexes = new HashSet<>(); // boards that reached maxFound, for the summary
+
+  // boards finish out of order, by as far as the longest board running takes:
+  // everything below doneBelow is done, doneAbove has a bit per board from
+  // aboveBase (a multiple of 64, <= doneBelow) on for the finished ones beyond it
+  long doneBelow;
+  long aboveBase;
+  long[] doneAbove = new long[16];
+
+  // flushes the last batch when no board finishes for a while
+  final Thread flusher;
+
+  // boards of the run's range [start, end); records of other boards (say of another
+  // --range run into the same file) stay in the log but are not restored, so the
+  // bitset starts at start rather than at 0
+  final long start, end;
+
+  public CheckpointLog(String path, long start, long end) throws IOException {
+    this.path = Paths.get(path);
+    this.start = start;
+    this.end = end;
+    channel = FileChannel.open(this.path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    skipTo(start);
+    load();
+    flusher = new Thread(this::flushEvery);
+    flusher.setDaemon(true);
+    flusher.start();
+  }
+
+  void load() throws IOException {
+    long size = channel.size();
+    long valid = size - size % RECORD_SIZE;
+    ByteBuffer in = ByteBuffer.allocateDirect(BATCH_RECORDS * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    long offset = 0;
+    while (offset < valid) {
+      in.clear();
+      in.limit((int) Math.min(in.capacity(), valid - offset));
+      while (in.hasRemaining()) {
+        if (channel.read(in, offset + in.position()) < 0) {
+          throw new IOException("unexpected end of checkpoint " + path);
+        }
+      }
+      in.flip();
+      while (in.remaining() >= RECORD_SIZE) {
+        long index = in.getLong();
+        int max = in.getInt();
+        long positions = in.getLong();
+        restore(index, max, positions);
+      }
+      offset += in.limit();
+    }
+    if (valid != size) {
+      System.err.printf("checkpoint %s: dropping %d bytes of a torn record\n", path, size - valid);
+      channel.truncate(valid);
+    }
+    channel.position(valid);
+    if (boards > 0) {
+      System.err.printf("checkpoint %s: %d boards done, max %d, searched positions %d\n", path, boards, maxFound, searchedPositions);
+    }
+  }
+
+  void restore(long index, int max, long positions) {
+    records++;
+    if (index < start || index >= end || isDone(index)) {
+      return; // not of this run, or logged twice, e.g. flushed right before a crash and searched again
+    }
+    boards++;
+    if (max > maxFound) {
+      maxFound = max;
+      bestIndexes.clear();
+    }
+    if (max == maxFound) {
+      bestIndexes.add(index);
+    }
+    searchedPositions += positions;
+    maxPositionsPerBoard = Math.max(maxPositionsPerBoard, positions);
+    markDone(index);
+  }
+
+  void markDone(long index) {
+    if (index < doneBelow) {
+      return;
+    }
+    int word = (int) ((index - aboveBase) >>> 6);
+    if (word >= doneAbove.length) {
+      doneAbove = Arrays.copyOf(doneAbove, Math.max(2 * doneAbove.length, word + 1));
+    }
+    doneAbove[word] |= 1L << index;
+    advance();
+  }
+
+  // counts everything below index as done, for runs over a range of the seeds
+  void skipTo(long index) {
+    if (index <= doneBelow) {
+      return;
+    }
+    doneBelow = index;
+    if (index - aboveBase >= 64L * doneAbove.length) {
+      Arrays.fill(doneAbove, 0);
+      aboveBase = index & ~63L;
+    }
+    advance();
+  }
+
+  // moves doneBelow over the finished boards at it, and drops the words below it
+  void advance() {
+    while (true) {
+      long i = doneBelow - aboveBase;
+      int word = (int) (i >>> 6);
+      if (word >= doneAbove.length) {
+        break;
+      }
+      long open = ~doneAbove[word] >>> i; // bits of boards not done, from doneBelow on
+      if (open != 0) {
+        doneBelow += Long.numberOfTrailingZeros(open);
+        break;
+      }
+      doneBelow = aboveBase + ((long) (word + 1) << 6);
+    }
+    int drop = (int) Math.min(doneAbove.length, (doneBelow - aboveBase) >>> 6);
+    if (drop > doneAbove.length / 2) {
+      System.arraycopy(doneAbove, drop, doneAbove, 0, doneAbove.length - drop);
+      Arrays.fill(doneAbove, doneAbove.length - drop, doneAbove.length, 0);
+      aboveBase += (long) drop << 6;
+    }
+  }
+
+  boolean isDone(long index) {
+    if (index < doneBelow) {
+      return true;
+    }
+    long word = (index - aboveBase) >>> 6;
+    return word < doneAbove.length && (doneAbove[(int) word] & 1L << index) != 0;
+  }
+
+  // results are written along with the log from now on; they must have been from the start
+  void attach(ResultsWriter results) throws IOException {
+    results.truncate(records);
+    this.results = results;
+  }
+
+  synchronized void append(long index, int max, long positions, SteppingOnes ones) throws IOException {
+    if (results != null) {
+      results.write(ones, max, positions);
+    }
+    records++;
+    batch.putLong(index);
+    batch.putInt(max);
+    batch.putLong(positions);
+    if (!batch.hasRemaining() || System.nanoTime() - lastFlushNanos > FLUSH_NANOS) {
+      flush();
+    }
+  }
+
+  synchronized void flush() throws IOException {
+    if (results != null) {
+      results.flush();
+    }
+    batch.flip();
+    while (batch.hasRemaining()) {
+      channel.write(batch);
+    }
+    batch.clear();
+    channel.force(false);
+    lastFlushNanos = System.nanoTime();
+  }
+
+  void flushEvery() {
+    while (true) {
+      long wait;
+      synchronized (this) {
+        wait = lastFlushNanos + FLUSH_NANOS - System.nanoTime();
+        if (wait <= 0 && channel.isOpen()) {
+          try {
+            flush();
+          } catch (IOException e) {
+            e.printStackTrace();
+          }
+          wait = FLUSH_NANOS;
+        }
+      }
+      if (!channel.isOpen()) {
+        return;
+      }
+      try {
+        Thread.sleep(Math.max(1, wait / 1_000_000));
+      } catch (InterruptedException e) {
+        return;
+      }
+    }
+  }
+
+  synchronized void close() throws IOException {
+    flusher.interrupt();
+    flush();
+    channel.close();
+  }
+}
@@ -0,0 +1,64 @@
+// counts of values in log buckets with 8 sub-buckets per power of two (like
+// HdrHistogram with 1 significant digit), so percentiles are within 1/8.
+// written by one thread, read by others without locking.
+class CostHistogram {
+  static final int SUB_BITS = 3, SUB = 1 << SUB_BITS;
+
+  final long[] counts = new long[64 * SUB];
+
+  static int bucket(long value) {
+    if (value < SUB) {
+      return (int) Math.max(0, value);
+    }
+    int e = 63 - Long.numberOfLeadingZeros(value);
+    return (e - SUB_BITS + 1) * SUB + (int) (value >>> (e - SUB_BITS) & (SUB - 1));
+  }
+
+  // the smallest value of a bucket
+  static long lowest(int bucket) {
+    if (bucket < SUB) {
+      return bucket;
+    }
+    int e = bucket / SUB + SUB_BITS - 1;
+    return (long) (SUB + bucket % SUB) << (e - SUB_BITS);
+  }
+
+  void record(long value) {
+    counts[bucket(value)]++;
+  }
+
+  void add(CostHistogram h) {
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] += h.counts[i];
+    }
+  }
+
+  // mean of the values above value (taking each bucket at its middle, or at value
+  // for the bucket holding it), -1 when there are none
+  double meanAbove(double value) {
+    double sum = 0;
+    long count = 0;
+    for (int i = 0; i < counts.length; i++) {
+      if (counts[i] > 0 && lowest(i + 1) > value) {
+        sum += counts[i] * Math.max(value, (lowest(i) + lowest(i + 1)) / 2.0);
+        count += counts[i];
+      }
+    }
+    return count == 0 ? -1 : sum / count;
+  }
+
+  long percentile(double p) {
+    long count = 0;
+    for (long c : counts) {
+      count += c;
+    }
+    long rank = (long) Math.ceil(p * count);
+    for (int i = 0; i < counts.length; i++) {
+      rank -= counts[i];
+      if (rank <= 0 && counts[i] > 0) {
+        return lowest(i);
+      }
+    }
+    return 0;
+  }
+}
@@ -0,0 +1,185 @@
+// SteppingOnes.expand() on plain int arrays with reused scratch buffers, emitting
+// canonical packed boards. not thread safe, use one per thread.
+class Expander {
+  interface Sink {
+    void accept(long hi, long lo);
+  }
+
+  static final int MAX = PackedOnes.MAX_ONES + 1;
+  int[] exp = new int[MAX], pre = new int[MAX], ones = new int[MAX];
+  Canonicalizer canon = new Canonicalizer();
+  int[] jump = new int[MAX];
+
+  // result of canonicalize()
+  long canonHi, canonLo;
+
+  public void expand(long hi, long lo, int distance, int prevDistance, Sink out) {
+    int n = PackedOnes.unpack(hi, lo, ones);
+    expand(ones, n, distance, prevDistance, out);
+  }
+
+  // see SteppingOnes.expand(), ones must be canonical
+  public void expand(int[] ones, int n, int distance, int prevDistance, Sink out) {
+    long thisHi = PackedOnes.hi(ones, n), thisLo = PackedOnes.lo(ones, n);
+    int maxRow = 0, maxCol = 0;
+    for (int i = 0; i < n; i++) {
+      maxRow = Math.max(maxRow, SteppingOnes.row(ones[i]));
+      maxCol = Math.max(maxCol, SteppingOnes.col(ones[i]));
+    }
+    precursorComponents(ones, n, prevDistance);
+    for (int row = -distance; row <= maxRow + distance; row++) {
+      for (int col = -distance; col <= maxCol + distance; col++) {
+        int dr = -Math.min(0, row), dc = -Math.min(0, col);
+        int addPos = SteppingOnes.pos(row + dr, col + dc);
+        boolean dup = false, reach = false;
+        for (int i = 0; i < n; i++) {
+          int pos0 = ones[i];
+          int pos = SteppingOnes.pos(SteppingOnes.row(pos0) + dr, SteppingOnes.col(pos0) + dc);
+          if (pos == addPos) {
+            dup = true;
+            break;
+          }
+          int dist = Math.max(Math.abs(row - SteppingOnes.row(pos0)), Math.abs(col - SteppingOnes.col(pos0)));
+          if (dist <= distance) {
+            reach = true;
+          }
+          exp[i] = pos;
+          addDist[i] = dist;
+        }
+        if (dup || !reach) {
+          continue;
+        }
+        exp[n] = addPos;
+        if (hasSmallerPrecursor(n, prevDistance, thisHi, thisLo)) {
+          continue;
+        }
+        canonicalize(exp, n + 1);
+        out.accept(canonHi, canonLo);
+      }
+    }
+  }
+
+  // per parent, for each one i: the parent without i split into groups that are
+  // connected by jumps <= prevDistance (comp), their number, and its minimal distance.
+  // a precursor (parent - i + new one) then has no gap iff the new one is within
+  // prevDistance of every group, which needs no floyd-warshall per candidate.
+  int[] comp = new int[MAX * MAX], compCount = new int[MAX], preMinDist = new int[MAX];
+  int[] addDist = new int[MAX], stack = new int[MAX];
+
+  void precursorComponents(int[] ones, int n, int prevDistance) {
+    for (int i = 0; i < n; i++) {
+      int[] c = comp;
+      int base = i * MAX, count = 0, minDist = Integer.MAX_VALUE;
+      for (int k = 0; k < n; k++) {
+        c[base + k] = -1;
+        for (int j = 0; j < k; j++) {
+          if (j != i && k != i) {
+            minDist = Math.min(minDist, SteppingOnes.dist(ones[j], ones[k]));
+          }
+        }
+      }
+      for (int k = 0; k < n; k++) {
+        if (k == i || c[base + k] >= 0) {
+          continue;
+        }
+        int top = 0;
+        stack[top++] = k;
+        c[base + k] = count;
+        while (top > 0) {
+          int a = stack[--top];
+          for (int b = 0; b < n; b++) {
+            if (b != i && c[base + b] < 0 && SteppingOnes.dist(ones[a], ones[b]) <= prevDistance) {
+              c[base + b] = count;
+              stack[top++] = b;
+            }
+          }
+        }
+        count++;
+      }
+      compCount[i] = count;
+      preMinDist[i] = minDist;
+    }
+  }
+
+  // is there a valid precursor (another one removed) that sorts before exp[0..n]?
+  // exp[i] is the shifted parent one i, exp[n] the new one, addDist[i] their distance.
+  boolean hasSmallerPrecursor(int n, int prevDistance, long thisHi, long thisLo) {
+    for (int i = 0; i < n; i++) {
+      int base = i * MAX, reached = 0, minDist = n == 1 ? 0 : preMinDist[i];
+      for (int k = 0; k < n; k++) {
+        if (k == i) {
+          continue;
+        }
+        minDist = Math.min(minDist, addDist[k]);
+        if (addDist[k] <= prevDistance) {
+          reached |= 1 << comp[base + k];
+        }
+      }
+      if (minDist > 2) {
+        continue; // must have seed
+      }
+      if (reached != (1 << compCount[i]) - 1) {
+        continue; // can't have gaps
+      }
+      int m = 0;
+      for (int j = 0; j <= n; j++) {
+        if (j != i) {
+          pre[m++] = exp[j];
+        }
+      }
+      minimize(pre, m);
+      canonicalize(pre, m);
+      if (PackedOnes.compare(canonHi, canonLo, thisHi, thisLo) < 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // the other precursors of a packed board, see SteppingOnes.otherPrecursors()
+  public void otherPrecursors(long hi, long lo, int lastPos, Sink out) {
+    int n = PackedOnes.unpack(hi, lo, ones);
+    for (int i = 0; i < n; i++) {
+      if (ones[i] == lastPos) {
+        continue;
+      }
+      int m = 0;
+      for (int j = 0; j < n; j++) {
+        if (j != i) {
+          pre[m++] = ones[j];
+        }
+      }
+      minimize(pre, m);
+      canonicalize(pre, m);
+      out.accept(canonHi, canonLo);
+    }
+  }
+
+  public boolean isSymmetryMinimal(long hi, long lo) {
+    int n = PackedOnes.unpack(hi, lo, ones);
+    canonicalize(ones, n);
+    return canonHi == hi && canonLo == lo;
+  }
+
+  // smallest of the 8 symmetric images of a[0..n) into canonHi, canonLo
+  void canonicalize(int[] a, int n) {
+    canon.canonicalize(a, n);
+    canonHi = canon.hi();
+    canonLo = canon.lo();
+  }
+
+  static void minimize(int[] a, int n) {
+    int minRow = Integer.MAX_VALUE, minCol = Integer.MAX_VALUE;
+    for (int i = 0; i < n; i++) {
+      minRow = Math.min(minRow, SteppingOnes.row(a[i]));
+      minCol = Math.min(minCol, SteppingOnes.col(a[i]));
+    }
+    for (int i = 0; i < n; i++) {
+      a[i] = SteppingOnes.pos(SteppingOnes.row(a[i]) - minRow, SteppingOnes.col(a[i]) - minCol);
+    }
+  }
+
+  int maximalJumpDistance(int[] a, int n) {
+    return SteppingOnes.maximalJumpDistance(a, n, jump);
+  }
+}
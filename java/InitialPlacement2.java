@@ -0,0 +1,550 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class InitialPlacement2 {
+  long startNanos;
+
+  int n;
+  // best value of all boards so far, raised by running searches as they find it
+  AtomicInteger best = new AtomicInteger();
+  public InitialPlacement2() {
+  }
+
+  String checkpointPath;
+  CheckpointLog checkpoint;
+  String resultsPath;
+  ResultsWriter results;
+  String seedsPath; // a SeedFile instead of text lines on stdin
+  // only the initial boards with index in [rangeStart, rangeEnd), or shard i of
+  // shards equal ranges of a seed file; index is the line or record number
+  long rangeStart, rangeEnd = Long.MAX_VALUE;
+  int shard, shards;
+  String summaryPath;
+  Summary summary = new Summary(); // best boards for the summary
+
+  // prove mode: only look for boards beating the best found so far (or reaching
+  // target), and cut branches that provably cannot. the overall max stays exact
+  // when it is >= target - 1; per-board maxima in checkpoint and results are lower bounds.
+  boolean prove;
+  int target;
+
+  // search engine for plain searches: board2, unrolled (Board2Unrolled), bits (Board2Bits)
+  // or iterative (Board2Iterative)
+  String engine = "board2";
+
+  // mid-board snapshots of long searches (with the iterative engine)
+  String snapshotsPath;
+  long snapshotPositions = Snapshots.SNAPSHOT_POSITIONS;
+  Snapshots snapshots;
+
+  // a transposition table of about tableMegabytes shared by all workers (not with prove)
+  long tableMegabytes;
+  TranspositionTable table;
+
+  static final long[] INIT_BOARDS = new long[] {
+    // n
+    // 1  2    3     4       5         6           7
+    1, 1, 5, 137, 8825, 576451, 38177587, 2517580016L,
+  };
+  static final int[] PRINT_THRES = new int[] {
+    // n
+    // 1   2   3   4   5   6     7     8     9
+    // A337663
+    // 1, 16, 28, 38, 49, 60, >=67, >=74, >=81, ..
+    0, 1, 16, 28, 38, 48, 57,   61,   64,   74,
+  };
+
+  long initialBoards; // handed to the workers, counted by the reading thread
+  // the workers count on their own; these are the totals restored from the checkpoint
+  long restoredBoards, restoredPositions, restoredMaxPositions;
+  SearchMetrics metrics = new SearchMetrics(this);
+  double metricsSeconds = -1; // json lines every metricsSeconds and the MBean, when >= 0
+
+  static final int QUEUE_SIZE = 256;
+  // initial boards are handed out in batches of about BATCH_POSITIONS searched
+  // positions, judged by the average so far, so tiny boards don't cost a queue
+  // round trip each while big ones still spread over all workers
+  static final long BATCH_POSITIONS = 1_000_000;
+  static final int MAX_BATCH = 4096;
+  int threads = Runtime.getRuntime().availableProcessors();
+  WorkQueue<Batch> queue = new WorkQueue<>(QUEUE_SIZE);
+  Batch batch = new Batch(1);
+
+  // branches split off big boards while workers are idle, taken before batches.
+  // only shallow branches are split, deeper ones are too small to be worth it.
+  static final int MAX_SPLIT_FROM = 10;
+  WorkQueue<SplitJob> splits = new WorkQueue<>(QUEUE_SIZE);
+  AtomicInteger queuedSplits = new AtomicInteger();
+  AtomicInteger busy = new AtomicInteger(); // workers holding work
+  AtomicInteger idle = new AtomicInteger(); // workers that found no work for a while
+  SearchWorker[] workers = new SearchWorker[0];
+  // one reusable board per worker thread, reset between initial boards
+  ThreadLocal<Board2> boards = new ThreadLocal<>();
+
+  static final int MAX = 100;
+  static final int MARGIN = Board2.margin(MAX);
+
+  // the worker's board with the seed placed, grown when a seed needs more room
+  Board2 board(SteppingOnes ones) {
+    int rows = ones.maxRow() + 1 + 2 * MARGIN, cols = ones.maxCol() + 1 + 2 * MARGIN;
+    Board2 b = boards.get();
+    if (b == null || b.rows < rows || b.cols < cols) {
+      if (b != null) {
+        rows = Math.max(rows, b.rows);
+        cols = Math.max(cols, b.cols);
+      }
+      if (prove) {
+        b = new ProvingBoard2(rows, cols, MAX, target - 1);
+      } else if (table != null) {
+        b = new TranspositionBoard2(rows, cols, MAX, table);
+      } else if (engine.equals("unrolled")) {
+        b = new Board2Unrolled(rows, cols, MAX);
+      } else if (engine.equals("bits")) {
+        b = new Board2Bits(rows, cols, MAX);
+      } else if (engine.equals("iterative")) {
+        b = new Board2Iterative(rows, cols, MAX);
+      } else {
+        b = new Board2(rows, cols, MAX);
+      }
+      b.best = best;
+      boards.set(b);
+    } else {
+      b.reset();
+    }
+    for (int pos : ones.ones) {
+      b.place(b.pos(MARGIN + SteppingOnes.row(pos), MARGIN + SteppingOnes.col(pos)), 1);
+    }
+    return b;
+  }
+
+  // totals over the workers, read without stopping them
+  long searchedPositions() {
+    long sum = restoredPositions;
+    for (SearchWorker w : workers) {
+      sum += w.searchedPositions;
+    }
+    return sum;
+  }
+  long prunedBranches() {
+    long sum = 0;
+    for (SearchWorker w : workers) {
+      sum += w.prunedBranches;
+    }
+    return sum;
+  }
+  long transpositions() {
+    long sum = 0;
+    for (SearchWorker w : workers) {
+      sum += w.transpositions;
+    }
+    return sum;
+  }
+  long transpositionProbes() {
+    long sum = 0;
+    for (SearchWorker w : workers) {
+      sum += w.transpositionProbes;
+    }
+    return sum;
+  }
+  long splitBranches() {
+    long sum = 0;
+    for (SearchWorker w : workers) {
+      sum += w.splitBranches;
+    }
+    return sum;
+  }
+  long maxPositionsPerBoard() {
+    long max = restoredMaxPositions;
+    for (SearchWorker w : workers) {
+      max = Math.max(max, w.maxPositionsPerBoard);
+    }
+    return max;
+  }
+
+  // initial boards of the range: up to the end of --range or of the seed file (both
+  // in rangeEnd), else the known count for n. -1 when unknown
+  long totalBoards() {
+    long end = rangeEnd;
+    if (n < INIT_BOARDS.length) {
+      end = Math.min(end, INIT_BOARDS[n]);
+    }
+    return end == Long.MAX_VALUE ? -1 : Math.max(0, end - rangeStart);
+  }
+
+  Summary summary(int maxFound) {
+    Summary s = new Summary();
+    s.start = rangeStart;
+    s.end = Math.max(rangeStart, rangeEnd);
+    s.max = maxFound;
+    if (summary.max == maxFound) {
+      s.best = summary.best;
+    } else {
+      System.err.printf("summary: the boards of max %d are not in the input read\n", maxFound);
+    }
+    s.boards = initialBoards;
+    s.positions = searchedPositions();
+    s.maxPerBoard = maxPositionsPerBoard();
+    return s;
+  }
+
+  // size of the next batch, from the boards searched in this run
+  int batchSize() {
+    long boards = 0, positions = 0;
+    for (SearchWorker w : workers) {
+      boards += w.boards;
+      positions += w.searchedPositions;
+    }
+    if (boards == 0) {
+      return 1;
+    }
+    long perBoard = Math.max(1, positions / boards);
+    return (int) Math.max(1, Math.min(MAX_BATCH, BATCH_POSITIONS / perBoard));
+  }
+
+  public int search(long index, long hi, long lo) {
+    initialBoards++;
+    if (initialBoards % 10000 == 0) {
+      System.out.printf("%d ", best.get());
+      if (startNanos != 0) {
+        double runSeconds = metrics.getRunSeconds();
+        double etaHours = metrics.getEtaSeconds() / 3600;
+        System.out.printf("%.3fs tot %.1fh eta %.1fh ", runSeconds, runSeconds / 3600 + etaHours, etaHours);
+      }
+      if (initialBoards % 100000 == 0) {
+        System.out.printf("max/board: %d ", maxPositionsPerBoard());
+      }
+      System.out.printf("initial boards: %d/%d done: %d searched positions: %d\n", initialBoards, totalBoards(), metrics.getCompletedBoards(), searchedPositions());
+    }
+    batch.add(index, hi, lo);
+    if (batch.size == batch.indexes.length) {
+      queue.put(batch);
+      batch = new Batch(batchSize());
+    }
+    return best.get();
+  }
+
+  // worker loop: split branches first, then batches, until all is done
+  void work(SearchWorker w) {
+    boolean idling = false;
+    for (int tries = 0; ; tries++) {
+      busy.incrementAndGet();
+      SplitJob split = splits.poll();
+      Batch batch = split == null ? queue.poll() : null;
+      if (idling && (split != null || batch != null)) {
+        idling = false;
+        idle.decrementAndGet();
+      }
+      long searchNanos = System.nanoTime();
+      if (split != null) {
+        queuedSplits.decrementAndGet();
+        w.itemStartNanos = searchNanos;
+        search(split, w);
+        searchNanos = w.busy(searchNanos);
+      }
+      if (batch != null) {
+        for (int i = 0; i < batch.size; i++) {
+          w.itemStartNanos = searchNanos;
+          search(new BoardJob(batch.indexes[i], batch.his[i], batch.los[i]), w);
+          searchNanos = w.busy(searchNanos);
+        }
+      }
+      w.itemStartNanos = 0;
+      // only busy workers add splits, so with none busy and both queues empty it's over
+      if (busy.decrementAndGet() == 0 && queue.closed && queue.isEmpty() && splits.isEmpty()) {
+        return;
+      }
+      if (split != null || batch != null) {
+        tries = 0;
+      } else {
+        if (tries == WorkQueue.SPINS && !idling) {
+          idling = true;
+          idle.incrementAndGet();
+        }
+        WorkQueue.backoff(tries);
+      }
+    }
+  }
+
+  // workers only get idle in the tail of a run, when no batches are left
+  boolean wantsSplit() {
+    return idle.get() > queuedSplits.get();
+  }
+
+  void search(BoardJob job, SearchWorker w) {
+    Board2 b = board(w.ones(job.hi, job.lo));
+    w.job = job;
+    b.splitter = w;
+    b.splitBase = 2;
+    b.splitUntil = MAX_SPLIT_FROM;
+    if (snapshots == null) {
+      b.search(2);
+    } else {
+      Board2Iterative bi = (Board2Iterative) b;
+      try {
+        if (!snapshots.resume(job, bi)) {
+          bi.start(2);
+        }
+      } catch (IOException e) {
+        e.printStackTrace(); // search it from scratch
+        b = bi = (Board2Iterative) board(w.ones(job.hi, job.lo));
+        bi.start(2);
+      }
+      while (!bi.run(snapshots.positions)) {
+        if (!job.forked) {
+          snapshots.offer(job, bi);
+        }
+      }
+    }
+    finish(job, b, w);
+  }
+
+  // replay the split off branch on the worker's board and search on from there
+  void search(SplitJob split, SearchWorker w) {
+    BoardJob job = split.job;
+    Board2 b = board(w.ones(job.hi, job.lo));
+    for (int i = PackedOnes.n(job.hi); i < split.length; i++) {
+      b.place(b.pos(split.rows[i], split.cols[i]), split.values[i]);
+    }
+    b.searchedPositions++;
+    w.job = job;
+    b.splitter = w;
+    b.splitBase = split.values[split.length - 1] + 1;
+    b.splitUntil = MAX_SPLIT_FROM;
+    b.search(b.splitBase);
+    finish(job, b, w);
+  }
+
+  // merge a searched board or branch into its job, and report the job when it was the last part
+  void finish(BoardJob job, Board2 b, SearchWorker w) {
+    // best is already up to date; the writers lock themselves
+    w.count(b);
+    if (!job.merge(b, PRINT_THRES[PackedOnes.n(job.hi)])) {
+      return;
+    }
+    SteppingOnes ones = w.ones(job.hi, job.lo);
+    w.finished(job);
+    if (checkpoint != null) {
+      try {
+        checkpoint.append(job.index, job.maxFound, job.searchedPositions, ones);
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+    } else if (results != null) {
+      try {
+        results.write(ones, job.maxFound, job.searchedPositions);
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+    }
+    if (job.snapshotted) {
+      try {
+        // the record must be on disk before the snapshot goes, or a crash loses both
+        if (checkpoint != null) {
+          checkpoint.flush();
+        }
+        snapshots.remove(job.index);
+      } catch (IOException | InterruptedException e) {
+        e.printStackTrace();
+      }
+    }
+    if (summaryPath != null && job.maxFound >= summary.max) {
+      summary.addBest(job.maxFound, ones.coordsString());
+    }
+    if (job.bestBoard != null) {
+      synchronized (System.out) {
+        job.bestBoard.print();
+        System.out.println(job.maxFound);
+        System.out.printf("%d max %s\n", job.maxFound, ones.coordsString());
+      }
+    }
+    //System.out.printf("%d max %s\n", job.maxFound, ones.coordsString());
+  }
+
+  int inputSearch() {
+    if (!engine.equals("board2") && (prove || tableMegabytes > 0)) {
+      System.err.println("--engine " + engine + " does not go with --prove or --tt");
+      return -1;
+    }
+    if (snapshotsPath != null && engine.equals("board2")) {
+      engine = "iterative";
+    }
+    if (snapshotsPath != null && (!engine.equals("iterative") || prove || tableMegabytes > 0)) {
+      System.err.println("--snapshots needs the iterative engine, without --prove or --tt");
+      return -1;
+    }
+    if (!Arrays.asList("board2", "unrolled", "bits", "iterative").contains(engine)) {
+      System.err.println("unknown engine " + engine);
+      return -1;
+    }
+    if (tableMegabytes > 0) {
+      if (prove) {
+        System.err.println("--tt does not go with --prove");
+        return -1;
+      }
+      table = new TranspositionTable(tableMegabytes << 20);
+    }
+    SeedReader seeds = null;
+    if (seedsPath != null) {
+      try {
+        seeds = new SeedReader(seedsPath);
+      } catch (IOException e) {
+        e.printStackTrace();
+        return -1;
+      }
+      n = seeds.n;
+      if (shards > 0) {
+        rangeStart = seeds.count * shard / shards;
+        rangeEnd = seeds.count * (shard + 1) / shards;
+      }
+      rangeEnd = Math.min(rangeEnd, seeds.count);
+      seeds.seek(rangeStart);
+    } else if (shards > 0) {
+      System.err.println("--shard needs the board count of --seeds");
+      return -1;
+    }
+    if (checkpointPath != null) {
+      try {
+        checkpoint = new CheckpointLog(checkpointPath, rangeStart, rangeEnd);
+      } catch (IOException e) {
+        e.printStackTrace();
+        return -1;
+      }
+      initialBoards = restoredBoards = checkpoint.boards;
+      restoredPositions = checkpoint.searchedPositions;
+      restoredMaxPositions = checkpoint.maxPositionsPerBoard;
+      best.set(checkpoint.maxFound);
+      if (summaryPath != null && seeds != null) {
+        // the best boards restored are not searched again, get them back for the summary
+        try {
+          for (long index : checkpoint.bestIndexes) {
+            seeds.seek(index);
+            if (seeds.next()) {
+              SteppingOnes ones = new SteppingOnes(seeds.n);
+              PackedOnes.unpack(seeds.hi, seeds.lo, ones.ones);
+              summary.addBest(checkpoint.maxFound, ones.coordsString());
+            }
+          }
+        } catch (IOException e) {
+          e.printStackTrace();
+          return -1;
+        }
+        seeds.seek(rangeStart);
+      }
+    }
+    if (snapshotsPath != null) {
+      try {
+        snapshots = new Snapshots(snapshotsPath, snapshotPositions);
+      } catch (IOException e) {
+        e.printStackTrace();
+        return -1;
+      }
+    }
+    if (resultsPath != null) {
+      try {
+        results = new ResultsWriter(resultsPath);
+        if (checkpoint != null) {
+          checkpoint.attach(results);
+        }
+      } catch (IOException e) {
+        e.printStackTrace();
+        return -1;
+      }
+    }
+    workers = new SearchWorker[threads];
+    for (int i = 0; i < threads; i++) {
+      workers[i] = new SearchWorker(this);
+      workers[i].start();
+    }
+    if (metricsSeconds >= 0) {
+      try {
+        metrics.register();
+      } catch (Exception e) {
+        e.printStackTrace();
+      }
+      metrics.start(metricsSeconds);
+    }
+    if (seeds != null) {
+      try {
+        for (long index = rangeStart; index < rangeEnd && seeds.next(); index++) {
+          if (checkpoint == null || !checkpoint.isDone(index)) {
+            search(index, seeds.hi, seeds.lo);
+          }
+        }
+        seeds.close();
+      } catch (IOException e) {
+        e.printStackTrace();
+        queue.close();
+        return -1;
+      }
+    } else {
+      BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+      long index;
+      for (index = 0; index < rangeEnd; index++) {
+        String line;
+        try {
+          line = in.readLine();
+        } catch (IOException e) {
+          e.printStackTrace();
+          queue.close();
+          return -1;
+        }
+        if (line == null) {
+          break;
+        }
+        if (summaryPath != null && checkpoint != null && checkpoint.bestIndexes.contains(index)) {
+          summary.addBest(checkpoint.maxFound, new SteppingOnes(line).coordsString());
+        }
+        if (index < rangeStart || checkpoint != null && checkpoint.isDone(index)) {
+          continue;
+        }
+        SteppingOnes ones = new SteppingOnes(line);
+        //ones.printCoords();
+        n = ones.ones.length;
+        search(index, ones.packedHi(), ones.packedLo());
+      }
+      rangeEnd = index; // the input may end first
+    }
+    if (batch.size > 0) {
+      queue.put(batch);
+    }
+    queue.close();
+    try {
+      for (SearchWorker w : workers) {
+        w.join();
+      }
+      if (checkpoint != null) {
+        checkpoint.close();
+      }
+      if (results != null) {
+        results.close();
+      }
+      if (snapshots != null) {
+        snapshots.close();
+      }
+    } catch (InterruptedException | IOException e) {
+      e.printStackTrace();
+      return -1;
+    }
+    return best.get();
+  }
+}
+
+// packed initial boards with their input index, searched one after another by one worker
+class Batch {
+  long[] indexes, his, los;
+  int size;
+  public Batch(int capacity) {
+    indexes = new long[capacity];
+    his = new long[capacity];
+    los = new long[capacity];
+  }
+
+  void add(long index, long hi, long lo) {
+    indexes[size] = index;
+    his[size] = hi;
+    los[size++] = lo;
+  }
+}
@@ -0,0 +1,60 @@
+// a board of up to 9 ones packed into two longs, 6 bits per coordinate:
+//
+//   hi = n << 60 | one[0] << 48 | one[1] << 36 | .. | one[4]
+//   lo =           one[5] << 48 | one[6] << 36 | .. | one[8]
+//
+// with one[i] = row << 6 | col. the ones are sorted like SteppingOnes.ones, so
+// comparing (hi, lo) unsigned orders boards like SteppingOnes.compareTo.
+// hi is never 0 (n >= 1), which PackedSet uses to mark empty slots.
+class PackedOnes {
+  static final int MAX_ONES = 9;
+  static final int MAX_COORD = 63;
+
+  static long hi(int[] ones, int n) {
+    long hi = (long) n << 60;
+    for (int i = 0; i < n && i < 5; i++) {
+      hi |= code(ones[i]) << (48 - 12 * i);
+    }
+    return hi;
+  }
+  static long lo(int[] ones, int n) {
+    long lo = 0;
+    for (int i = 5; i < n; i++) {
+      lo |= code(ones[i]) << (48 - 12 * (i - 5));
+    }
+    return lo;
+  }
+  static long code(int pos) {
+    int row = SteppingOnes.row(pos), col = SteppingOnes.col(pos);
+    if (row > MAX_COORD || col > MAX_COORD) {
+      throw new IllegalArgumentException("coordinates out of range for packing: " + row + "," + col);
+    }
+    return row << 6 | col;
+  }
+
+  static int n(long hi) {
+    return (int) (hi >>> 60);
+  }
+
+  // unpacks into ones[0..n), returns n
+  static int unpack(long hi, long lo, int[] ones) {
+    int n = n(hi);
+    for (int i = 0; i < n; i++) {
+      int code = (int) ((i < 5 ? hi >>> (48 - 12 * i) : lo >>> (48 - 12 * (i - 5))) & 0xfff);
+      ones[i] = SteppingOnes.pos(code >>> 6, code & 0x3f);
+    }
+    return n;
+  }
+
+  static int compare(long hi1, long lo1, long hi2, long lo2) {
+    int c = Long.compareUnsigned(hi1, hi2);
+    return c != 0 ? c : Long.compareUnsigned(lo1, lo2);
+  }
+
+  static void appendCoords(StringBuilder sb, int[] ones, int n) {
+    sb.append(n);
+    for (int i = 0; i < n; i++) {
+      sb.append(' ').append(SteppingOnes.row(ones[i])).append(' ').append(SteppingOnes.col(ones[i]));
+    }
+  }
+}
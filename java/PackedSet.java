@@ -0,0 +1,153 @@
+import java.util.Arrays;
+
+// open-addressing hash set of packed boards, 16 bytes per slot, at most half full
+class PackedSet {
+  long[] keys; // hi, lo per slot
+  int size, mask;
+
+  public PackedSet() {
+    this(16);
+  }
+  public PackedSet(int expected) {
+    int capacity = Integer.highestOneBit(Math.max(16, expected) * 2 - 1) * 2;
+    keys = new long[2 * capacity];
+    mask = capacity - 1;
+  }
+
+  static int hash(long hi, long lo) {
+    long h = hi * 0x9E3779B97F4A7C15L ^ lo * 0xC2B2AE3D27D4EB4FL;
+    h ^= h >>> 31;
+    h *= 0xBF58476D1CE4E5B9L;
+    return (int) (h ^ h >>> 29);
+  }
+
+  public boolean add(long hi, long lo) {
+    int slot = hash(hi, lo) & mask;
+    while (keys[2 * slot] != 0) {
+      if (keys[2 * slot] == hi && keys[2 * slot + 1] == lo) {
+        return false;
+      }
+      slot = (slot + 1) & mask;
+    }
+    keys[2 * slot] = hi;
+    keys[2 * slot + 1] = lo;
+    if (++size > (mask + 1) / 2) {
+      grow();
+    }
+    return true;
+  }
+
+  public boolean contains(long hi, long lo) {
+    int slot = hash(hi, lo) & mask;
+    while (keys[2 * slot] != 0) {
+      if (keys[2 * slot] == hi && keys[2 * slot + 1] == lo) {
+        return true;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return false;
+  }
+
+  void grow() {
+    long[] old = keys;
+    keys = new long[2 * old.length];
+    mask = old.length - 1;
+    for (int i = 0; i < old.length; i += 2) {
+      if (old[i] != 0) {
+        int slot = hash(old[i], old[i + 1]) & mask;
+        while (keys[2 * slot] != 0) {
+          slot = (slot + 1) & mask;
+        }
+        keys[2 * slot] = old[i];
+        keys[2 * slot + 1] = old[i + 1];
+      }
+    }
+  }
+
+  public void clear() {
+    if (size > 0) {
+      Arrays.fill(keys, 0);
+      size = 0;
+    }
+  }
+
+  public int size() {
+    return size;
+  }
+
+  // slots for iteration: for (slot = 0; slot < capacity(); slot++) if (hi(slot) != 0) ..
+  public int capacity() {
+    return mask + 1;
+  }
+  public long hi(int slot) {
+    return keys[2 * slot];
+  }
+  public long lo(int slot) {
+    return keys[2 * slot + 1];
+  }
+
+  // all boards as hi, lo pairs in SteppingOnes order, sorted in place: the set
+  // is unusable afterwards, only the first 2 * size entries are valid
+  public long[] drainSorted() {
+    int j = 0;
+    for (int i = 0; i < keys.length; i += 2) {
+      if (keys[i] != 0) {
+        keys[j++] = keys[i];
+        keys[j++] = keys[i + 1];
+      }
+    }
+    sortPairs(keys, 0, size - 1);
+    long[] sorted = keys;
+    keys = null;
+    return sorted;
+  }
+
+  // all boards as sorted hi, lo pairs in buf (reallocated if too small)
+  public long[] sorted(long[] buf) {
+    if (buf == null || buf.length < 2 * size) {
+      buf = new long[2 * size];
+    }
+    int j = 0;
+    for (int i = 0; i < keys.length; i += 2) {
+      if (keys[i] != 0) {
+        buf[j++] = keys[i];
+        buf[j++] = keys[i + 1];
+      }
+    }
+    sortPairs(buf, 0, size - 1);
+    return buf;
+  }
+
+  static void sortPairs(long[] a, int from, int to) {
+    while (from < to) {
+      int mid = (from + to) >>> 1;
+      long pivotHi = a[2 * mid], pivotLo = a[2 * mid + 1];
+      int i = from, j = to;
+      while (i <= j) {
+        while (PackedOnes.compare(a[2 * i], a[2 * i + 1], pivotHi, pivotLo) < 0) {
+          i++;
+        }
+        while (PackedOnes.compare(a[2 * j], a[2 * j + 1], pivotHi, pivotLo) > 0) {
+          j--;
+        }
+        if (i <= j) {
+          long hi = a[2 * i], lo = a[2 * i + 1];
+          a[2 * i] = a[2 * j];
+          a[2 * i + 1] = a[2 * j + 1];
+          a[2 * j] = hi;
+          a[2 * j + 1] = lo;
+          i++;
+          j--;
+        }
+      }
+      // recurse into the smaller half
+      if (j - from < to - i) {
+        sortPairs(a, from, j);
+        from = i;
+      } else {
+        sortPairs(a, i, to);
+        to = j;
+      }
+    }
+  }
+}
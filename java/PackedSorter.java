@@ -0,0 +1,210 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// external sort of packed boards with duplicates removed, for levels that don't
+// fit in memory: boards are collected in a buffer of budget bytes, which is sorted,
+// deduplicated and spilled to a run file in dir when full. drain() then merges the
+// runs (memory mapped, so off the heap) into one sorted stream of unique boards.
+//
+// run file: sorted unique (long hi, long lo) pairs, little endian, no header.
+class PackedSorter {
+  static final int RECORD_SIZE = 16;
+
+  final Path dir;
+  final long[] buffer; // hi, lo pairs
+  int size;
+  List<Path> runs = new ArrayList<>();
+  long added, unique;
+
+  public PackedSorter(String dir, long budget) throws IOException {
+    this.dir = Paths.get(dir);
+    Files.createDirectories(this.dir);
+    long pairs = Math.max(1024, Math.min(budget / RECORD_SIZE, Integer.MAX_VALUE / 2 - 8));
+    buffer = new long[(int) (2 * pairs)];
+  }
+
+  void add(long hi, long lo) throws IOException {
+    if (2 * size == buffer.length) {
+      spill();
+    }
+    buffer[2 * size] = hi;
+    buffer[2 * size + 1] = lo;
+    size++;
+    added++;
+  }
+
+  // sorts the buffer and keeps one of each board, returns how many
+  int sortUnique() {
+    if (size == 0) {
+      return 0;
+    }
+    PackedSet.sortPairs(buffer, 0, size - 1);
+    int j = 1;
+    for (int i = 1; i < size; i++) {
+      if (buffer[2 * i] != buffer[2 * j - 2] || buffer[2 * i + 1] != buffer[2 * j - 1]) {
+        buffer[2 * j] = buffer[2 * i];
+        buffer[2 * j + 1] = buffer[2 * i + 1];
+        j++;
+      }
+    }
+    return j;
+  }
+
+  void spill() throws IOException {
+    int count = sortUnique();
+    Path run = dir.resolve("run-" + runs.size());
+    ByteBuffer batch = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+    try (FileChannel channel = FileChannel.open(run, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      for (int i = 0; i < count; i++) {
+        batch.putLong(buffer[2 * i]).putLong(buffer[2 * i + 1]);
+        if (!batch.hasRemaining()) {
+          flush(batch, channel);
+        }
+      }
+      flush(batch, channel);
+    }
+    System.err.printf("spilled run %d: %d boards, %d unique\n", runs.size(), size, count);
+    runs.add(run);
+    size = 0;
+  }
+
+  static void flush(ByteBuffer batch, FileChannel channel) throws IOException {
+    batch.flip();
+    while (batch.hasRemaining()) {
+      channel.write(batch);
+    }
+    batch.clear();
+  }
+
+  // all boards added, sorted, each once; the run files are removed
+  void drain(Expander.Sink out) throws IOException {
+    if (runs.isEmpty()) {
+      int count = sortUnique();
+      for (int i = 0; i < count; i++) {
+        out.accept(buffer[2 * i], buffer[2 * i + 1]);
+      }
+      unique = count;
+      size = 0;
+      return;
+    }
+    if (size > 0) {
+      spill();
+    }
+    // k-way merge over a binary heap of runs ordered by their current board
+    int k = runs.size();
+    RunReader[] readers = new RunReader[k];
+    int[] heap = new int[k];
+    int heapSize = 0;
+    for (int r = 0; r < k; r++) {
+      readers[r] = new RunReader(runs.get(r));
+      if (readers[r].next()) {
+        heap[heapSize++] = r;
+        siftUp(heap, heapSize - 1, readers);
+      }
+    }
+    boolean first = true;
+    long lastHi = 0, lastLo = 0;
+    while (heapSize > 0) {
+      RunReader min = readers[heap[0]];
+      if (first || min.hi != lastHi || min.lo != lastLo) {
+        out.accept(min.hi, min.lo);
+        unique++;
+        lastHi = min.hi;
+        lastLo = min.lo;
+        first = false;
+      }
+      if (!min.next()) {
+        heap[0] = heap[--heapSize];
+      }
+      siftDown(heap, heapSize, readers);
+    }
+    for (int r = 0; r < k; r++) {
+      readers[r].close();
+      Files.delete(runs.get(r));
+    }
+    runs.clear();
+  }
+
+  static boolean less(RunReader a, RunReader b) {
+    return PackedOnes.compare(a.hi, a.lo, b.hi, b.lo) < 0;
+  }
+
+  static void siftUp(int[] heap, int i, RunReader[] readers) {
+    while (i > 0) {
+      int parent = (i - 1) / 2;
+      if (!less(readers[heap[i]], readers[heap[parent]])) {
+        return;
+      }
+      int t = heap[i];
+      heap[i] = heap[parent];
+      heap[parent] = t;
+      i = parent;
+    }
+  }
+
+  static void siftDown(int[] heap, int size, RunReader[] readers) {
+    int i = 0;
+    while (true) {
+      int child = 2 * i + 1;
+      if (child >= size) {
+        return;
+      }
+      if (child + 1 < size && less(readers[heap[child + 1]], readers[heap[child]])) {
+        child++;
+      }
+      if (!less(readers[heap[child]], readers[heap[i]])) {
+        return;
+      }
+      int t = heap[i];
+      heap[i] = heap[child];
+      heap[child] = t;
+      i = child;
+    }
+  }
+}
+
+// reads a run file through memory mapped windows
+class RunReader {
+  static final long WINDOW_BYTES = 1 << 26;
+
+  FileChannel channel;
+  long size; // bytes
+  MappedByteBuffer window;
+  long windowStart, windowEnd, offset;
+  long hi, lo; // the board next() read
+
+  public RunReader(Path path) throws IOException {
+    channel = FileChannel.open(path, StandardOpenOption.READ);
+    size = channel.size();
+  }
+
+  boolean next() throws IOException {
+    if (offset == size) {
+      return false;
+    }
+    if (offset == windowEnd) {
+      windowStart = offset;
+      windowEnd = Math.min(size, windowStart + WINDOW_BYTES);
+      window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowEnd - windowStart);
+      window.order(ByteOrder.LITTLE_ENDIAN);
+    }
+    int i = (int) (offset - windowStart);
+    hi = window.getLong(i);
+    lo = window.getLong(i + 8);
+    offset += PackedSorter.RECORD_SIZE;
+    return true;
+  }
+
+  void close() throws IOException {
+    channel.close();
+  }
+}
@@ -0,0 +1,76 @@
+import java.util.Arrays;
+
+// Board2 for prove mode: only improvements on the best value of all boards
+// (or on floor) matter, so branches that provably cannot reach best + 1 are cut.
+// keeps the number of candidate cells per count for that.
+class ProvingBoard2 extends Board2 {
+  static final int REFRESH_POSITIONS = 1024;
+
+  int floor;
+  int target;      // best + 1 as last read, only ever too low, which just prunes less
+  int[] candCount; // linked cells per count >= 1
+
+  public ProvingBoard2(int rows, int cols, int max, int floor) {
+    super(rows, cols, max);
+    this.floor = floor;
+    candCount = new int[max + 1];
+  }
+
+  @Override
+  void reset() {
+    super.reset();
+    Arrays.fill(candCount, 0);
+    target = 0;
+  }
+
+  // cells of a new board are unlinked with count 0, so count 0 is not tracked
+  @Override
+  void unlink(int pos) {
+    super.unlink(pos);
+    int count = counts[pos];
+    if (count > 0 && count <= max) {
+      candCount[count]--;
+    }
+  }
+
+  @Override
+  void link(int pos) {
+    super.link(pos);
+    int count = counts[pos];
+    if (count > 0 && count <= max) {
+      candCount[count]++;
+    }
+  }
+
+  // can stones from, from + 1, .., target still all be placed? (false only if provably not)
+  // a stone v <= 2 * from gets at most one neighbour placed after now, as two would
+  // add up to more than v. so its cell has count v now, or count c in [1, v - from].
+  // values in from + 1 .. from + j with no cell of their own count left therefore
+  // need as many distinct cells of count <= j.
+  boolean canReach(int from, int target) {
+    int end = Math.min(Math.min(from, target - from), max - from);
+    int missing = 0, low = 0;
+    for (int j = 1; j <= end; j++) {
+      low += candCount[j];
+      if (candCount[from + j] == 0 && ++missing > low) {
+        return false;
+      }
+      if (low >= missing + end - j) {
+        return true; // enough cells for all values still to come
+      }
+    }
+    return true;
+  }
+
+  @Override
+  int search(int from) {
+    if (target == 0 || searchedPositions % REFRESH_POSITIONS == 0) {
+      target = Math.max(best.get(), floor) + 1;
+    }
+    if (!canReach(from, target)) {
+      prunedBranches++;
+      return maxFound;
+    }
+    return super.search(from);
+  }
+}
@@ -0,0 +1,73 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+// buffered writer for SteppingResults records, shared by all search threads.
+// like CheckpointLog, batches are written when full or after FLUSH_NANOS and
+// forced to disk, and a torn record at the end of the file is cut off when reopening.
+// with a checkpoint, the log writes the records and flushes them before its own
+// (see CheckpointLog.attach()).
+class ResultsWriter {
+  static final long FLUSH_NANOS = CheckpointLog.FLUSH_NANOS;
+
+  final Path path;
+  FileChannel channel;
+  ByteBuffer batch = ByteBuffer.allocateDirect(SteppingResults.BATCH_RECORDS * SteppingResults.RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+  long lastFlushNanos = System.nanoTime();
+  long records; // in the file and the batch
+
+  public ResultsWriter(String path) throws IOException {
+    this.path = Paths.get(path);
+    channel = FileChannel.open(this.path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    long size = channel.size();
+    long valid = size - size % SteppingResults.RECORD_SIZE;
+    if (valid != size) {
+      System.err.printf("results %s: dropping %d bytes of a torn record\n", path, size - valid);
+      channel.truncate(valid);
+    }
+    channel.position(valid);
+    records = valid / SteppingResults.RECORD_SIZE;
+  }
+
+  synchronized void write(SteppingOnes ones, int maxFound, long searchedPositions) throws IOException {
+    SteppingResults.encode(batch, ones);
+    batch.putInt(maxFound);
+    batch.putLong(searchedPositions);
+    records++;
+    if (!batch.hasRemaining() || System.nanoTime() - lastFlushNanos > FLUSH_NANOS) {
+      flush();
+    }
+  }
+
+  // drops records beyond the first count, written before a crash that lost them from the checkpoint
+  synchronized void truncate(long count) throws IOException {
+    flush();
+    if (records > count) {
+      System.err.printf("results %s: dropping %d records beyond the checkpoint\n", path, records - count);
+      channel.truncate(count * SteppingResults.RECORD_SIZE);
+      channel.position(count * SteppingResults.RECORD_SIZE);
+      records = count;
+    } else if (records < count) {
+      System.err.printf("results %s: %d boards of the checkpoint have no record\n", path, count - records);
+    }
+  }
+
+  synchronized void flush() throws IOException {
+    batch.flip();
+    while (batch.hasRemaining()) {
+      channel.write(batch);
+    }
+    batch.clear();
+    channel.force(false);
+    lastFlushNanos = System.nanoTime();
+  }
+
+  synchronized void close() throws IOException {
+    flush();
+    channel.close();
+  }
+}
@@ -0,0 +1,160 @@
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import javax.management.ObjectName;
+
+// live numbers of a SteppingStone2 run, read from the workers without stopping them:
+// completed and in-flight boards, positions per second, worker utilisation, the
+// distribution of searched positions per board, and an eta weighted by that cost.
+//
+// --metrics SECONDS prints them as a json line on stderr every SECONDS (none for 0)
+// and registers them as the MBean SteppingStone2:type=SearchMetrics.
+public class SearchMetrics implements SearchMetricsMBean {
+  final InitialPlacement2 ip;
+
+  public SearchMetrics(InitialPlacement2 ip) {
+    this.ip = ip;
+  }
+
+  void register() throws Exception {
+    ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName("SteppingStone2:type=SearchMetrics"));
+  }
+
+  void start(double seconds) {
+    if (seconds <= 0) {
+      return;
+    }
+    Thread t = new Thread(() -> {
+      long periodNanos = (long) (seconds * 1e9);
+      long next = System.nanoTime() + periodNanos;
+      while (true) {
+        long wait = next - System.nanoTime();
+        if (wait > 0) {
+          try {
+            Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+          } catch (InterruptedException e) {
+            return;
+          }
+        }
+        next += periodNanos;
+        System.err.println(getJson());
+      }
+    });
+    t.setDaemon(true);
+    t.start();
+  }
+
+  public int getMaxFound() {
+    return ip.best.get();
+  }
+
+  public double getRunSeconds() {
+    return (System.nanoTime() - ip.startNanos) / 1e9;
+  }
+
+  public long getTotalBoards() {
+    return ip.totalBoards();
+  }
+
+  public long getCompletedBoards() {
+    long sum = ip.restoredBoards;
+    for (SearchWorker w : ip.workers) {
+      sum += w.boards;
+    }
+    return sum;
+  }
+
+  // handed to the workers and not finished yet
+  public long getInFlightBoards() {
+    return Math.max(0, ip.initialBoards - getCompletedBoards());
+  }
+
+  public long getSearchedPositions() {
+    return ip.searchedPositions();
+  }
+
+  // positions counted when a board (or a split off branch) finishes, in this run
+  public double getPositionsPerSecond() {
+    return (ip.searchedPositions() - ip.restoredPositions) / getRunSeconds();
+  }
+
+  // share of the workers' time spent searching
+  public double getUtilisation() {
+    long busy = 0;
+    for (SearchWorker w : ip.workers) {
+      busy += w.busyNanos;
+    }
+    return ip.workers.length == 0 ? 0 : busy / 1e9 / getRunSeconds() / ip.workers.length;
+  }
+
+  // expected work left over the positions per busy second of the workers, all
+  // counted in positions: boards not started yet at the mean cost of this run's
+  // boards, and each board (or split branch) running for t at what boards of
+  // this run that cost more than t's worth of positions cost beyond that (from
+  // the cost histogram), so a long board in the tail keeps the eta up instead of
+  // counting as one average board. NaN before a board is done or while the total
+  // is unknown.
+  public double getEtaSeconds() {
+    long completed = getCompletedBoards() - ip.restoredBoards;
+    long total = ip.totalBoards();
+    long busy = 0;
+    for (SearchWorker w : ip.workers) {
+      busy += w.busyNanos;
+    }
+    long positions = ip.searchedPositions() - ip.restoredPositions;
+    if (completed <= 0 || total < 0 || busy == 0 || positions == 0) {
+      return Double.NaN;
+    }
+    double rate = positions / (busy / 1e9); // per busy worker
+    CostHistogram costs = costs();
+    long now = System.nanoTime();
+    double work = 0;
+    int running = 0;
+    for (SearchWorker w : ip.workers) {
+      long start = w.itemStartNanos;
+      if (start != 0) {
+        running++;
+        double done = Math.max(0, now - start) / 1e9 * rate;
+        double cost = costs.meanAbove(done);
+        work += cost < 0 ? done : cost - done; // costlier than any so far: as much again
+      }
+    }
+    work += Math.max(0, total - getCompletedBoards() - running) * ((double) positions / completed);
+    return work / rate / ip.workers.length;
+  }
+
+  public long getCostP50() {
+    return costs().percentile(0.5);
+  }
+
+  public long getCostP99() {
+    return costs().percentile(0.99);
+  }
+
+  public long getCostMax() {
+    return ip.maxPositionsPerBoard();
+  }
+
+  // searched positions per board of this run, over all workers
+  CostHistogram costs() {
+    CostHistogram sum = new CostHistogram();
+    for (SearchWorker w : ip.workers) {
+      sum.add(w.costs);
+    }
+    return sum;
+  }
+
+  public String getJson() {
+    CostHistogram costs = costs();
+    return String.format(Locale.ROOT, "{\"runSeconds\":%s,\"maxFound\":%d,\"totalBoards\":%d,\"completedBoards\":%d,\"inFlightBoards\":%d,"
+        + "\"searchedPositions\":%d,\"positionsPerSecond\":%s,\"utilisation\":%s,\"etaSeconds\":%s,"
+        + "\"costP50\":%d,\"costP90\":%d,\"costP99\":%d,\"costMax\":%d,\"split\":%d}",
+        json(getRunSeconds(), 3), getMaxFound(), getTotalBoards(), getCompletedBoards(), getInFlightBoards(),
+        getSearchedPositions(), json(getPositionsPerSecond(), 0), json(getUtilisation(), 3), json(getEtaSeconds(), 0),
+        costs.percentile(0.5), costs.percentile(0.9), costs.percentile(0.99), getCostMax(), ip.splitBranches());
+  }
+
+  // a json number, with a point whatever the locale, or null for NaN and infinities
+  static String json(double value, int decimals) {
+    return Double.isFinite(value) ? String.format(Locale.ROOT, "%." + decimals + "f", value) : "null";
+  }
+}
@@ -0,0 +1,16 @@
+// what SearchMetrics shows over JMX (SteppingStone2:type=SearchMetrics)
+public interface SearchMetricsMBean {
+  int getMaxFound();
+  double getRunSeconds();
+  long getTotalBoards();
+  long getCompletedBoards();
+  long getInFlightBoards();
+  long getSearchedPositions();
+  double getPositionsPerSecond();
+  double getUtilisation();
+  double getEtaSeconds();
+  long getCostP50();
+  long getCostP99();
+  long getCostMax();
+  String getJson();
+}
@@ -0,0 +1,85 @@
+// a search thread taking split branches and batches of initial boards until
+// all are done. it keeps its own counters, only ever written by itself, so
+// finishing a board touches no shared state but best; totals are summed when needed.
+class SearchWorker extends Thread implements Splitter {
+  final InitialPlacement2 ip;
+  volatile long boards, searchedPositions, prunedBranches, maxPositionsPerBoard, splitBranches;
+  volatile long transpositions, transpositionProbes;
+  volatile long busyNanos; // searching
+  volatile long itemStartNanos; // when the board or branch being searched began, 0 when idle
+  CostHistogram costs = new CostHistogram(); // searched positions per finished board
+  BoardJob job; // being searched
+  SteppingOnes[] ones = new SteppingOnes[PackedOnes.MAX_ONES + 1]; // reused per n
+
+  public SearchWorker(InitialPlacement2 ip) {
+    this.ip = ip;
+    setDaemon(true);
+    for (int n = 1; n <= PackedOnes.MAX_ONES; n++) {
+      ones[n] = new SteppingOnes(n);
+    }
+  }
+
+  // the board unpacked into this worker's SteppingOnes for its n
+  SteppingOnes ones(long hi, long lo) {
+    SteppingOnes o = ones[PackedOnes.n(hi)];
+    PackedOnes.unpack(hi, lo, o.ones);
+    return o;
+  }
+
+  // a board or a branch of one
+  void count(Board2 b) {
+    searchedPositions += b.searchedPositions;
+    prunedBranches += b.prunedBranches;
+    transpositions += b.transpositions;
+    transpositionProbes += b.transpositionProbes;
+  }
+
+  // adds the time since startNanos to busyNanos, returns now
+  long busy(long startNanos) {
+    long now = System.nanoTime();
+    busyNanos += now - startNanos;
+    return now;
+  }
+
+  void finished(BoardJob job) {
+    boards++;
+    costs.record(job.searchedPositions);
+    if (job.searchedPositions > maxPositionsPerBoard) {
+      maxPositionsPerBoard = job.searchedPositions;
+    }
+  }
+
+  @Override
+  public boolean wantsSplit() {
+    return ip.wantsSplit();
+  }
+
+  // the remaining candidates of the shallowest search that has any, as they are the biggest branches
+  @Override
+  public void split(Board2 b, int from) {
+    for (int f = b.splitBase; f <= from; f++) {
+      int begin = b.frameNext[f], end = b.frameEnd[f];
+      if (begin == end) {
+        continue;
+      }
+      for (; end > begin; end--) {
+        job.fork();
+        ip.queuedSplits.incrementAndGet();
+        if (!ip.splits.offer(new SplitJob(job, b, b.framePath[f], b.candList[end - 1], f))) {
+          ip.queuedSplits.decrementAndGet();
+          job.unfork();
+          break;
+        }
+        splitBranches++;
+        job.forked = true;
+      }
+      b.frameEnd[f] = end;
+      return;
+    }
+  }
+
+  @Override
+  public void run() {
+    ip.work(this);
+  }
+}
@@ -0,0 +1,55 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+
+// binary seed file: the initial boards SteppingOnes prints, without the text.
+//
+// header (little endian, 16 bytes): int magic "STP1", int n, long count
+// records: PackedOnes hi, and lo when n > 5 (8 or 16 bytes)
+//
+// SteppingOnes writes it with "bin FILE", SteppingStone2 reads it with --seeds FILE.
+//
+// usage: java SeedFile FILE          print the boards as text lines
+//        java SeedFile write FILE    write the text lines from stdin as a seed file
+public class SeedFile {
+  static final int MAGIC = 0x31505453;
+  static final int HEADER_SIZE = 16;
+
+  static int recordSize(int n) {
+    return n <= 5 ? 8 : 16;
+  }
+
+  public static void main(String[] args) {
+    try {
+      if (args[0].equals("write")) {
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+        SeedWriter out = null;
+        String line;
+        while ((line = in.readLine()) != null) {
+          SteppingOnes ones = new SteppingOnes(line);
+          if (out == null) {
+            out = new SeedWriter(args[1], ones.ones.length);
+          }
+          out.write(ones.packedHi(), ones.packedLo());
+        }
+        if (out != null) {
+          out.close();
+        }
+        return;
+      }
+      SeedReader in = new SeedReader(args[0]);
+      int[] ones = new int[PackedOnes.MAX_ONES];
+      StringBuilder sb = new StringBuilder();
+      while (in.next()) {
+        int n = PackedOnes.unpack(in.hi, in.lo, ones);
+        sb.setLength(0);
+        PackedOnes.appendCoords(sb, ones, n);
+        System.out.println(sb);
+      }
+      in.close();
+    } catch (IOException e) {
+      e.printStackTrace();
+      System.exit(1);
+    }
+  }
+}
@@ -0,0 +1,69 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+// reads a seed file through memory mapped windows, without allocating per board
+class SeedReader {
+  static final long WINDOW_BYTES = 1 << 30;
+
+  FileChannel channel;
+  int n, recordSize;
+  long count;
+
+  MappedByteBuffer window;
+  long windowStart, windowEnd; // record indexes
+  long index; // of the next record
+  long hi, lo; // the board next() read
+
+  public SeedReader(String path) throws IOException {
+    channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+    ByteBuffer header = ByteBuffer.allocate(SeedFile.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    while (header.hasRemaining()) {
+      if (channel.read(header, header.position()) < 0) {
+        throw new IOException("truncated seed file header " + path);
+      }
+    }
+    header.flip();
+    if (header.getInt() != SeedFile.MAGIC) {
+      throw new IOException("not a seed file " + path);
+    }
+    n = header.getInt();
+    count = header.getLong();
+    recordSize = SeedFile.recordSize(n);
+    if (n < 1 || n > PackedOnes.MAX_ONES || channel.size() < SeedFile.HEADER_SIZE + count * recordSize) {
+      throw new IOException("bad seed file header " + path + ": n " + n + " count " + count);
+    }
+  }
+
+  // the next next() reads board index
+  void seek(long index) {
+    this.index = Math.min(index, count);
+    windowStart = windowEnd = this.index; // map a new window there
+  }
+
+  // reads the next board into hi, lo; false at the end
+  boolean next() throws IOException {
+    if (index == count) {
+      return false;
+    }
+    if (index == windowEnd) {
+      windowStart = index;
+      windowEnd = Math.min(count, windowStart + WINDOW_BYTES / recordSize);
+      window = channel.map(FileChannel.MapMode.READ_ONLY, SeedFile.HEADER_SIZE + windowStart * recordSize, (windowEnd - windowStart) * recordSize);
+      window.order(ByteOrder.LITTLE_ENDIAN);
+    }
+    int offset = (int) (index - windowStart) * recordSize;
+    hi = window.getLong(offset);
+    lo = n > 5 ? window.getLong(offset + 8) : 0;
+    index++;
+    return true;
+  }
+
+  void close() throws IOException {
+    channel.close();
+  }
+}
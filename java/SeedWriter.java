@@ -0,0 +1,54 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+// writes a seed file; the count in the header is filled in by close()
+class SeedWriter {
+  static final int BATCH_BYTES = 1 << 16;
+
+  FileChannel channel;
+  ByteBuffer batch = ByteBuffer.allocateDirect(BATCH_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+  int n;
+  long count;
+
+  public SeedWriter(String path, int n) throws IOException {
+    this.n = n;
+    channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    channel.position(SeedFile.HEADER_SIZE);
+  }
+
+  synchronized void write(long hi, long lo) throws IOException {
+    if (PackedOnes.n(hi) != n) {
+      throw new IllegalArgumentException("board of " + PackedOnes.n(hi) + " ones in a seed file of " + n);
+    }
+    if (batch.remaining() < 16) {
+      flush();
+    }
+    batch.putLong(hi);
+    if (n > 5) {
+      batch.putLong(lo);
+    }
+    count++;
+  }
+
+  synchronized void flush() throws IOException {
+    batch.flip();
+    while (batch.hasRemaining()) {
+      channel.write(batch);
+    }
+    batch.clear();
+  }
+
+  synchronized void close() throws IOException {
+    flush();
+    ByteBuffer header = ByteBuffer.allocate(SeedFile.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    header.putInt(SeedFile.MAGIC).putInt(n).putLong(count).flip();
+    while (header.hasRemaining()) {
+      channel.write(header, header.position());
+    }
+    channel.close();
+  }
+}
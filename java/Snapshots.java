@@ -0,0 +1,141 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+// mid-board snapshots of long searches (--snapshots DIR), so a restart resumes
+// a board where it was rather than from scratch.
+//
+// every SNAPSHOT_POSITIONS (--snapshot-every) positions a search captures its state (a few hundred
+// bytes, see Board2Iterative.capture()) and hands it to the writer thread, which
+// writes DIR/INDEX.snap (little endian):
+//   int magic "SNP1", long index, long hi, long lo (the seed), then the capture.
+// files are replaced by rename, so a crash leaves the previous one. the file is
+// removed when the board is done, after its checkpoint record is flushed.
+// the directory is listed once at startup, so boards without a file cost no syscall.
+//
+// only searches that never split off branches are captured: split branches live
+// in memory only, while a capture taken before the first split still holds them
+// as remaining candidates.
+class Snapshots {
+  static final int MAGIC = 0x31504e53;
+  static final long SNAPSHOT_POSITIONS = 1L << 28;
+
+  final Path dir;
+  // captures to write, and index-only entries for files to remove, in order.
+  // a blocking queue, as the writer is idle nearly all the time
+  final BlockingQueue<Snapshot> queue = new ArrayBlockingQueue<>(64);
+  static final Snapshot END = new Snapshot(-1, null);
+  final Thread writer;
+  final long positions; // between captures
+  final Set<Long> found = ConcurrentHashMap.newKeySet(); // indexes with a file at startup
+
+  public Snapshots(String dir, long positions) throws IOException {
+    this.dir = Paths.get(dir);
+    this.positions = positions;
+    Files.createDirectories(this.dir);
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(this.dir, "*.snap")) {
+      for (Path file : files) {
+        String name = file.getFileName().toString();
+        try {
+          found.add(Long.parseLong(name.substring(0, name.length() - ".snap".length())));
+        } catch (NumberFormatException e) {
+          System.err.println("snapshots: ignoring " + file);
+        }
+      }
+    }
+    writer = new Thread(this::write);
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  Path path(long index) {
+    return dir.resolve(index + ".snap");
+  }
+
+  // called by the searching thread; dropped if the writer is behind, the next one comes soon
+  void offer(BoardJob job, Board2Iterative b) {
+    ByteBuffer capture = b.capture();
+    ByteBuffer data = ByteBuffer.allocate(4 + 3 * 8 + capture.remaining()).order(ByteOrder.LITTLE_ENDIAN);
+    data.putInt(MAGIC).putLong(job.index).putLong(job.hi).putLong(job.lo).put(capture).flip();
+    if (queue.offer(new Snapshot(job.index, data))) {
+      job.snapshotted = true;
+    }
+  }
+
+  void remove(long index) throws InterruptedException {
+    queue.put(new Snapshot(index, null));
+  }
+
+  // restores b from the job's snapshot, if there is one
+  boolean resume(BoardJob job, Board2Iterative b) throws IOException {
+    if (!found.remove(job.index)) {
+      return false;
+    }
+    Path path = path(job.index);
+    ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+    if (in.getInt() != MAGIC || in.getLong() != job.index || in.getLong() != job.hi || in.getLong() != job.lo) {
+      throw new IOException("snapshot " + path + " is not of board " + job.index);
+    }
+    b.restore(in);
+    job.snapshotted = true;
+    System.err.printf("snapshot %s: resuming board %d at %d positions, max %d\n", path, job.index, b.searchedPositions, b.maxFound);
+    return true;
+  }
+
+  void write() {
+    while (true) {
+      Snapshot s;
+      try {
+        s = queue.take();
+      } catch (InterruptedException e) {
+        return;
+      }
+      if (s == END) {
+        return;
+      }
+      Path path = path(s.index);
+      try {
+        if (s.data == null) {
+          Files.deleteIfExists(path);
+          continue;
+        }
+        Path tmp = dir.resolve(s.index + ".snap.tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+          while (s.data.hasRemaining()) {
+            channel.write(s.data);
+          }
+          channel.force(false);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+    }
+  }
+
+  void close() throws InterruptedException {
+    queue.put(END);
+    writer.join();
+  }
+}
+
+class Snapshot {
+  long index;
+  ByteBuffer data; // null: remove the file
+
+  public Snapshot(long index, ByteBuffer data) {
+    this.index = index;
+    this.data = data;
+  }
+}
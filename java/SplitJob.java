@@ -0,0 +1,24 @@
+// a branch of a job's search: the placements leading to it, as rows and columns
+// so any worker's board can replay them, the last one being the branch's stone
+class SplitJob {
+  BoardJob job;
+  int[] rows, cols, values;
+  int length;
+
+  // the first pathLength placements of b, then value at pos
+  public SplitJob(BoardJob job, Board2 b, int pathLength, int pos, int value) {
+    this.job = job;
+    length = pathLength + 1;
+    rows = new int[length];
+    cols = new int[length];
+    values = new int[length];
+    for (int i = 0; i < pathLength; i++) {
+      rows[i] = b.row(b.pathPos[i]);
+      cols[i] = b.col(b.pathPos[i]);
+      values[i] = b.pathValue[i];
+    }
+    rows[length - 1] = b.row(pos);
+    cols[length - 1] = b.col(pos);
+    values[length - 1] = value;
+  }
+}
@@ -0,0 +1,6 @@
+// lets a running search hand off branches it has not started yet
+interface Splitter {
+  boolean wantsSplit();
+  // hand off some of the remaining candidates of searches splitBase..from, shortening their frameEnd
+  void split(Board2 b, int from);
+}
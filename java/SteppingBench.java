@@ -0,0 +1,159 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+// micro benchmarks, with warmup and the allocation rate of the benchmark thread.
+// fixed seed sets are read from bench/seeds-N.txt (SteppingOnes coordinate lines,
+// all n=3 seeds and every 64th / 4096th of n=4 / n=5).
+//
+// usage (from java/): java SteppingBench [all|board2|unrolled|bits|iterative|board|expand|sym] [n]
+//   board2: Board2.search(2) over the seeds of n = 3..5, positions per second
+//   unrolled: the same with Board2Unrolled
+//   bits: the same with Board2Bits
+//   iterative: the same with Board2Iterative
+//   board:  the same with the old Board
+//   expand: SteppingOnes.expand() of the seeds, calls per second
+//   sym:    SteppingOnes.isSymmetryMinimal() of the seeds and of random boards for n = 6..8
+public class SteppingBench {
+  static final double WARMUP_SECONDS = 2, MEASURE_SECONDS = 3;
+  static long sink; // keeps results alive
+
+  public static void main(String[] args) throws IOException {
+    String what = args.length > 0 ? args[0] : "all";
+    int minN = 3, maxN = 5;
+    if (args.length > 1) {
+      minN = maxN = Integer.parseInt(args[1]);
+    }
+    for (int n = minN; n <= maxN; n++) {
+      List<SteppingOnes> seeds = seeds(n);
+      switch (what) {
+        case "all":
+          board2(n, seeds, "board2");
+          board2(n, seeds, "unrolled");
+          board2(n, seeds, "bits");
+          board2(n, seeds, "iterative");
+          board(n, seeds);
+          expand(n, seeds);
+          sym(n, seeds);
+          break;
+        case "board2":
+        case "unrolled":
+        case "bits":
+        case "iterative":
+          board2(n, seeds, what);
+          break;
+        case "board":
+          board(n, seeds);
+          break;
+        case "expand":
+          expand(n, seeds);
+          break;
+        case "sym":
+          sym(n, seeds);
+          break;
+        default:
+          System.err.println("unknown benchmark " + what);
+          System.exit(1);
+      }
+    }
+    if (what.equals("sym") && args.length == 1) {
+      for (int n = 6; n <= 8; n++) {
+        sym(n, sample(n, 1024, new Random(n)));
+      }
+    }
+  }
+
+  static List<SteppingOnes> seeds(int n) throws IOException {
+    List<SteppingOnes> seeds = new ArrayList<>();
+    for (String line : Files.readAllLines(Paths.get("bench", "seeds-" + n + ".txt"))) {
+      seeds.add(new SteppingOnes(line));
+    }
+    return seeds;
+  }
+
+  static void board2(int n, List<SteppingOnes> seeds, String engine) {
+    InitialPlacement2 ip = new InitialPlacement2();
+    ip.engine = engine;
+    int[] i = new int[1];
+    bench(engine + ".search n=" + n, "positions", () -> {
+      Board2 b = ip.board(seeds.get(i[0]++ % seeds.size()));
+      b.search(2);
+      return b.searchedPositions;
+    });
+  }
+
+  static void board(int n, List<SteppingOnes> seeds) {
+    int margin = Board2.margin(100);
+    int[] i = new int[1];
+    bench("Board.search n=" + n, "positions", () -> {
+      SteppingOnes ones = seeds.get(i[0]++ % seeds.size());
+      int side = Math.max(ones.maxRow(), ones.maxCol()) + 1 + 2 * margin;
+      Board b = new Board(side, side, 100);
+      for (int pos : ones.ones) {
+        b.place((margin + SteppingOnes.row(pos)) * side + margin + SteppingOnes.col(pos), 1);
+      }
+      b.maxFound = Integer.MAX_VALUE; // no printing
+      b.search(2);
+      return b.searchedPositions;
+    });
+  }
+
+  static void expand(int n, List<SteppingOnes> seeds) {
+    int[] i = new int[1];
+    bench("SteppingOnes.expand n=" + n, "calls", () -> {
+      sink += seeds.get(i[0]++ % seeds.size()).expand(4, 4).size();
+      return 1;
+    });
+  }
+
+  static void sym(int n, List<SteppingOnes> boards) {
+    int[] i = new int[1];
+    bench("isSymmetryMinimal n=" + n, "calls", () -> {
+      sink += boards.get(i[0]++ % boards.size()).isSymmetryMinimal(false) ? 1 : 0;
+      return 1;
+    });
+  }
+
+  // random boards of n ones, each grown one by one along expand()
+  static List<SteppingOnes> sample(int n, int count, Random random) {
+    List<SteppingOnes> boards = new ArrayList<>();
+    while (boards.size() < count) {
+      SteppingOnes board = new SteppingOnes(1);
+      for (int k = 2; k <= n && board != null; k++) {
+        List<SteppingOnes> exp = board.expand(k == 2 ? 2 : 4, 4);
+        board = exp.isEmpty() ? null : exp.get(random.nextInt(exp.size()));
+      }
+      if (board != null) {
+        boards.add(board);
+      }
+    }
+    return boards;
+  }
+
+  // runs op repeatedly, op returns how many units (calls, positions, ..) it did
+  static void bench(String name, String unit, LongSupplier op) {
+    run(op, WARMUP_SECONDS);
+    com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long thread = Thread.currentThread().getId();
+    long allocated = threads.getThreadAllocatedBytes(thread);
+    long startNanos = System.nanoTime();
+    long units = run(op, MEASURE_SECONDS);
+    double seconds = (System.nanoTime() - startNanos) / 1e9;
+    allocated = threads.getThreadAllocatedBytes(thread) - allocated;
+    System.out.printf("%-36s %14.0f %s/s %10.1f bytes/%s\n", name, units / seconds, unit, (double) allocated / units, unit.replaceAll("s$", ""));
+  }
+
+  static long run(LongSupplier op, double seconds) {
+    long units = 0;
+    long endNanos = System.nanoTime() + (long) (seconds * 1e9);
+    while (System.nanoTime() < endNanos) {
+      units += op.getAsLong();
+    }
+    return units;
+  }
+}
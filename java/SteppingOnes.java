@@ -4,7 +4,11 @@ import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 // n           1 2 3      4      5        6          7
@@ -63,9 +67,61 @@ public class SteppingOnes implements Comparable<SteppingOnes> {
       prevDistance = Integer.parseInt(args[2]);
     }
 
-    boolean only = false;
-    if (args.length > 3) {
-      only = args[3].equals("only");
+    boolean only = false, parallel = false, packed = false;
+    String seedsPath = null, spillDir = null;
+    long heapBytes = SPILL_HEAP_MB << 20;
+    for (int i = 3; i < args.length; i++) {
+      only |= args[i].equals("only");
+      parallel |= args[i].equals("par");
+      packed |= args[i].equals("packed");
+      if (args[i].equals("bin")) {
+        seedsPath = args[++i];
+      }
+      if (args[i].equals("spill")) {
+        spillDir = args[++i];
+      }
+      if (args[i].equals("heap")) {
+        heapBytes = Long.parseLong(args[++i]) << 20;
+      }
+    }
+    if (spillDir != null && n < 7) {
+      System.err.println("spill is for n >= 7, use packed to deduplicate smaller n in memory");
+      return;
+    }
+    if (spillDir != null) {
+      packed = true;
+      try {
+        sorter = new PackedSorter(spillDir, heapBytes);
+      } catch (IOException e) {
+        e.printStackTrace();
+        return;
+      }
+    }
+    if (seedsPath != null) {
+      try {
+        seeds = new SeedWriter(seedsPath, n);
+      } catch (IOException e) {
+        e.printStackTrace();
+        return;
+      }
+    }
+    if (packed) {
+      try {
+        expandPacked(in, n, distance, prevDistance, only);
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+      closeSeeds();
+      return;
+    }
+    if (parallel) {
+      try {
+        expandParallel(in, n, distance, prevDistance, only);
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+      closeSeeds();
+      return;
     }
 
     List<SteppingOnes> all = Collections.singletonList(new SteppingOnes(1));
@@ -110,7 +166,7 @@ public class SteppingOnes implements Comparable<SteppingOnes> {
                 continue;
               }
             }
-            board.printCoords();
+            print(board);
           }
           next.clear();
         }
@@ -134,14 +190,225 @@ public class SteppingOnes implements Comparable<SteppingOnes> {
           continue;
         }
       }
+      print(board);
+    }
+    closeSeeds();
+  }
+
+  // boards go to this SeedFile instead of stdout when set ("bin FILE")
+  static SeedWriter seeds;
+
+  static void print(SteppingOnes board) {
+    if (seeds == null) {
       board.printCoords();
+      return;
+    }
+    writeSeed(board.packedHi(), board.packedLo());
+  }
+
+  static void writeSeed(long hi, long lo) {
+    try {
+      seeds.write(hi, lo);
+    } catch (IOException e) {
+      e.printStackTrace();
+      System.exit(1);
+    }
+  }
+
+  static void closeSeeds() {
+    if (seeds == null) {
+      return;
+    }
+    try {
+      seeds.close();
+    } catch (IOException e) {
+      e.printStackTrace();
+      System.exit(1);
     }
+    System.err.printf("wrote %d boards\n", seeds.count);
+  }
+
+  // n >= 7 boards are deduplicated globally through this when set ("spill DIR"),
+  // sorting in heap MB ("heap MB") and spilling sorted runs to DIR beyond that
+  static PackedSorter sorter;
+  static final long SPILL_HEAP_MB = 256;
+
+  static final int PARALLEL_CHUNK = 4096;
+
+  // same boards as the sequential main, but each level is expanded on all cores.
+  // levels before n are deduplicated in a concurrent set; the last level is
+  // printed per parent as soon as it is expanded (unsorted), deduplicated
+  // globally below 6 and per parent from 6 on, like the sequential version.
+  // for n >= 7 the n - 1 boards are read from stdin in chunks, so memory stays bounded.
+  static void expandParallel(BufferedReader in, int n, int distance, int prevDistance, boolean only) throws IOException {
+    AtomicLong expanded = new AtomicLong();
+    if (n >= 7) {
+      List<SteppingOnes> chunk = new ArrayList<>(PARALLEL_CHUNK);
+      while (true) {
+        chunk.clear();
+        String line;
+        while (chunk.size() < PARALLEL_CHUNK && (line = in.readLine()) != null) {
+          chunk.add(new SteppingOnes(line));
+        }
+        if (chunk.isEmpty()) {
+          break;
+        }
+        chunk.parallelStream().forEach(prev -> printExpansion(prev.expand(distance, prevDistance), null, only, distance));
+        System.err.printf("expand %d\n", expanded.addAndGet(chunk.size()));
+      }
+      return;
+    }
+    List<SteppingOnes> all = Collections.singletonList(new SteppingOnes(1));
+    for (int k = 2; k < n; k++) {
+      int d = k == 2 ? 2 : distance;
+      Set<SteppingOnes> seen = ConcurrentHashMap.newKeySet();
+      all = all.parallelStream()
+          .flatMap(prev -> prev.expand(d, prevDistance).stream())
+          .filter(seen::add)
+          .collect(Collectors.toList());
+      System.err.printf("size %d found %d\n", k, all.size());
+    }
+    if (n < 2) {
+      printExpansion(all, null, only, distance);
+      return;
+    }
+    int d = n == 2 ? 2 : distance;
+    Set<SteppingOnes> seen = n < 6 ? ConcurrentHashMap.newKeySet() : null;
+    long total = all.size();
+    all.parallelStream().forEach(prev -> {
+      printExpansion(prev.expand(d, prevDistance), seen, only, distance);
+      long done = expanded.incrementAndGet();
+      if (done % 10000 == 0) {
+        System.err.printf("expand %d/%d %.1f%%\n", done, total, 100.0 * done / total);
+      }
+    });
+  }
+
+  // print boards not seen before (seen == null: only within this list) in one write
+  static void printExpansion(List<SteppingOnes> boards, Set<SteppingOnes> seen, boolean only, int distance) {
+    if (seen == null) {
+      seen = new HashSet<>();
+    }
+    StringBuilder sb = new StringBuilder();
+    for (SteppingOnes board : boards) {
+      if (!seen.add(board)) {
+        continue;
+      }
+      if (only && board.maximalJumpDistance() < distance) {
+        continue;
+      }
+      if (seeds != null) {
+        writeSeed(board.packedHi(), board.packedLo());
+        continue;
+      }
+      sb.append(board.coordsString()).append('\n');
+    }
+    System.out.print(sb);
+  }
+
+  // levels kept as packed boards in open-addressing sets, 16 bytes per board
+  // instead of an object, an int[] and list/set entries. unlike the object form,
+  // every level below 7 is deduplicated globally. for n >= 7 the n - 1 boards are
+  // read from stdin and deduplicated per parent, or globally with a sorter. the
+  // boards are the same as in the object form, but each parent's come sorted by
+  // packed value instead of in expand order, so the output differs line by line.
+  static void expandPacked(BufferedReader in, int n, int distance, int prevDistance, boolean only) throws IOException {
+    Expander expander = new Expander();
+    int[] ones = new int[PackedOnes.MAX_ONES + 1];
+    StringBuilder sb = new StringBuilder();
+    if (n >= 7) {
+      PackedSet next = new PackedSet();
+      long[] sorted = null;
+      String line;
+      for (long prevI = 1; (line = in.readLine()) != null; prevI++) {
+        SteppingOnes prev = new SteppingOnes(line);
+        next.clear();
+        expander.expand(prev.ones, prev.ones.length, distance, prevDistance, next::add);
+        if (sorter != null) {
+          for (int slot = 0; slot < next.capacity(); slot++) {
+            if (next.hi(slot) != 0 && !(only && skip(next.hi(slot), next.lo(slot), expander, distance))) {
+              sorter.add(next.hi(slot), next.lo(slot));
+            }
+          }
+        } else {
+          sorted = next.sorted(sorted);
+          printPacked(sorted, next.size(), expander, only, distance, sb);
+        }
+        if (prevI % 10000 == 0) {
+          System.err.printf("expand %d\n", prevI);
+        }
+      }
+      if (sorter != null) {
+        sorter.drain((hi, lo) -> printPacked(hi, lo, expander, sb));
+        System.err.printf("merged %d boards, %d unique\n", sorter.added, sorter.unique);
+      }
+      return;
+    }
+    PackedSet all = new PackedSet();
+    ones[0] = pos(0, 0);
+    all.add(PackedOnes.hi(ones, 1), PackedOnes.lo(ones, 1));
+    for (int k = 2; k <= n; k++) {
+      int d = k == 2 ? 2 : distance;
+      PackedSet next = new PackedSet(all.size() * 8);
+      long prevI = 0;
+      for (int slot = 0; slot < all.capacity(); slot++) {
+        if (all.hi(slot) == 0) {
+          continue;
+        }
+        expander.expand(all.hi(slot), all.lo(slot), d, prevDistance, next::add);
+        prevI++;
+        if (prevI % 10000 == 0 || (prevI == all.size() && all.size() > 10000)) {
+          System.err.printf("expand %d/%d %.1f%%\n", prevI, all.size(), 100.0 * prevI / all.size());
+        }
+      }
+      System.err.printf("size %d found %d\n", k, next.size());
+      all = next;
+    }
+    printPacked(all.drainSorted(), all.size(), expander, only, distance, sb);
+  }
+
+  static void printPacked(long[] sorted, int size, Expander expander, boolean only, int distance, StringBuilder sb) {
+    for (int i = 0; i < 2 * size; i += 2) {
+      if (only && skip(sorted[i], sorted[i + 1], expander, distance)) {
+        continue;
+      }
+      printPacked(sorted[i], sorted[i + 1], expander, sb);
+    }
+  }
+
+  // "only": boards without a jump of distance
+  static boolean skip(long hi, long lo, Expander expander, int distance) {
+    int n = PackedOnes.unpack(hi, lo, expander.ones);
+    return expander.maximalJumpDistance(expander.ones, n) < distance;
+  }
+
+  static void printPacked(long hi, long lo, Expander expander, StringBuilder sb) {
+    if (seeds != null) {
+      writeSeed(hi, lo);
+      return;
+    }
+    int n = PackedOnes.unpack(hi, lo, expander.ones);
+    sb.setLength(0);
+    PackedOnes.appendCoords(sb, expander.ones, n);
+    System.out.println(sb);
   }
 
   public SteppingOnes(int n) {
     ones = new int[n];
   }
 
+  public SteppingOnes(long hi, long lo) {
+    ones = new int[PackedOnes.n(hi)];
+    PackedOnes.unpack(hi, lo, ones);
+  }
+
+  public long packedHi() {
+    return PackedOnes.hi(ones, ones.length);
+  }
+  public long packedLo() {
+    return PackedOnes.lo(ones, ones.length);
+  }
+
   public SteppingOnes(String coordLine) {
     String[] parts = coordLine.split(" ");
     int n = Integer.parseInt(parts[0]);
@@ -224,57 +491,11 @@ public class SteppingOnes implements Comparable<SteppingOnes> {
     return sb.toString();
   }
 
+  static final ThreadLocal<Expander> EXPANDER = ThreadLocal.withInitial(Expander::new);
+
   public List<SteppingOnes> expand(int distance, int prevDistance) {
-    int n = ones.length, maxRow = maxRow(), maxCol = maxCol();
     List<SteppingOnes> list = new ArrayList<>();
-    for (int row = -distance; row <= maxRow + distance; row++) {
-      for (int col = -distance; col <= maxCol + distance; col++) {
-        int dr = -Math.min(0, row), dc = -Math.min(0, col);
-        int addPos = pos(row + dr, col + dc);
-        SteppingOnes exp = new SteppingOnes(n + 1);
-        boolean dup = false, reach = false;
-        for (int i = 0; i < ones.length; i++) {
-          int pos0 = ones[i];
-          int pos = pos(row(pos0) + dr, col(pos0) + dc);
-          if (pos == addPos) {
-            dup = true;
-            break;
-          }
-          int dist = Math.max(Math.abs(row - row(pos0)), Math.abs(col - col(pos0)));
-          if (dist <= distance) {
-            reach = true;
-          }
-          exp.ones[i] = pos;
-        }
-        if (dup || !reach) {
-          continue;
-        }
-        exp.ones[n] = addPos;
-        Arrays.sort(exp.ones);
-        boolean smallerPre = false;
-        for (SteppingOnes pre : exp.otherPrecursors(addPos)) {
-          if (pre.minimalDistance() > 2) {
-            continue; // must have seed
-          }
-          if (pre.maximalJumpDistance() > prevDistance) {
-            continue; // can't have gaps
-          }
-          if (Arrays.compare(pre.ones, this.ones) < 0) {
-            smallerPre = true;
-          }
-        }
-        if (smallerPre) {
-          //System.err.println("smaller pre " + row + "," + col + " " + dr + "," + dc);
-          //exp.errBoard();
-          continue;
-        }
-        if (exp.isSymmetryMinimal(true)) {
-          //System.err.println("exp " + row + "," + col);
-          //exp.errBoard();
-          list.add(exp);
-        }
-      }
-    }
+    EXPANDER.get().expand(ones, ones.length, distance, prevDistance, (hi, lo) -> list.add(new SteppingOnes(hi, lo)));
     return list;
   }
   public List<SteppingOnes> otherPrecursors(int lastpos) {
@@ -298,37 +519,14 @@ public class SteppingOnes implements Comparable<SteppingOnes> {
     }
     return list;
   }
+  static final ThreadLocal<Canonicalizer> CANONICALIZER = ThreadLocal.withInitial(Canonicalizer::new);
+
+  // is this the smallest of its 8 symmetric images? with update, becomes that image
   public boolean isSymmetryMinimal(boolean update) {
-    boolean minimal = true;
-    int n = ones.length, maxRow = maxRow(), maxCol = maxCol();
-    SteppingOnes that = new SteppingOnes(n);
-    int[] minimalOnes = ones;
-    for (int rf = -1; rf <= 1; rf += 2) {
-      for (int cf = -1; cf <= 1; cf += 2) {
-        for (int rc = -1; rc <= 1; rc += 2) {
-          for (int i = 0; i < n; i++) {
-            int pos = ones[i];
-            int row = row(pos), col = col(pos);
-            if (rf < 0) { row = maxRow - row; }
-            if (cf < 0) { col = maxCol - col; }
-            if (rc < 0) {
-              int tmp = row;
-              row = col;
-              col = tmp;
-            }
-            that.ones[i] = pos(row, col);
-          }
-          Arrays.sort(that.ones);
-          if (Arrays.compare(minimalOnes, that.ones) > 0) {
-            minimal = false;
-            minimalOnes = that.ones;
-            that = new SteppingOnes(n);
-          }
-        }
-      }
-    }
+    Canonicalizer canon = CANONICALIZER.get();
+    boolean minimal = canon.canonicalize(ones, ones.length);
     if (update) {
-      ones = minimalOnes;
+      canon.bestTo(ones);
       minimal = true;
     }
     return minimal;
@@ -363,27 +561,32 @@ public class SteppingOnes implements Comparable<SteppingOnes> {
   }
 
   public int maximalJumpDistance() {
-    // symmetric floyd-warshall-like
-    int n = ones.length;
-    int[][] dist = new int[n][n];
-    for (int i = 1; i < n; i++) {
-      for (int j = 0; j < i; j++) {
-        dist[i][j] = dist(ones[i], ones[j]);
-        dist[j][i] = dist[i][j];
-      }
+    return maximalJumpDistance(ones, ones.length, new int[ones.length]);
+  }
+
+  // largest jump needed to connect all ones: the longest edge of the minimum
+  // spanning tree (prim, O(n^2)), which is the largest minimax distance over all pairs
+  static int maximalJumpDistance(int[] ones, int n, int[] reach) {
+    if (n < 2) {
+      return 0;
     }
-    for (int k = 0; k < n; ++k) {
-      for (int i = 1; i < n; ++i) {
-        for (int j = 0; j < i; ++j) {
-          dist[i][j] = Math.min(dist[i][j], Math.max(dist[i][k], dist[k][j]));
-          dist[j][i] = dist[i][j];
+    int maxDist = 0, in = 1; // bit k: ones[k] is in the tree
+    for (int k = 1; k < n; k++) {
+      reach[k] = dist(ones[0], ones[k]);
+    }
+    for (int added = 1; added < n; added++) {
+      int next = -1;
+      for (int k = 1; k < n; k++) {
+        if ((in & 1 << k) == 0 && (next < 0 || reach[k] < reach[next])) {
+          next = k;
         }
       }
-    }
-    int maxDist = 0;
-    for (int i = 1; i < n; i++) {
-      for (int j = 0; j < i; j++) {
-        maxDist = Math.max(maxDist, dist[i][j]);
+      maxDist = Math.max(maxDist, reach[next]);
+      in |= 1 << next;
+      for (int k = 1; k < n; k++) {
+        if ((in & 1 << k) == 0) {
+          reach[k] = Math.min(reach[k], dist(ones[next], ones[k]));
+        }
       }
     }
     return maxDist;
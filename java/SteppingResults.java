@@ -0,0 +1,108 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+// per-initial-board results, one fixed-width record per board.
+//
+// record (little endian, 32 bytes):
+//   byte n, n * (byte row, byte col) padded to 9 ones, byte pad, int maxFound, long searchedPositions
+//
+// usage: java SteppingResults [--min M] FILE..
+// streams the records and prints a histogram of maxima per n, plus all boards with max >= M.
+public class SteppingResults {
+  static final int RECORD_SIZE = 32;
+  static final int MAX_ONES = 9;
+  static final int BATCH_RECORDS = 2048;
+
+  public static void main(String[] args) {
+    int printMin = Integer.MAX_VALUE;
+    long[][] histogram = new long[MAX_ONES + 1][];
+    long[] boards = new long[MAX_ONES + 1];
+    long[] positions = new long[MAX_ONES + 1];
+    SteppingOnes[] ones = new SteppingOnes[MAX_ONES + 1];
+    for (int n = 1; n <= MAX_ONES; n++) {
+      histogram[n] = new long[256];
+      ones[n] = new SteppingOnes(n);
+    }
+    ByteBuffer in = ByteBuffer.allocateDirect(BATCH_RECORDS * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].equals("--min")) {
+        printMin = Integer.parseInt(args[++i]);
+        continue;
+      }
+      try (FileChannel channel = FileChannel.open(Paths.get(args[i]), StandardOpenOption.READ)) {
+        in.clear();
+        boolean eof = false;
+        while (!eof) {
+          eof = channel.read(in) < 0;
+          in.flip();
+          if (eof && in.remaining() % RECORD_SIZE != 0) {
+            System.err.printf("%s: ignoring %d trailing bytes\n", args[i], in.remaining() % RECORD_SIZE);
+          }
+          while (in.remaining() >= RECORD_SIZE) {
+            int n = decode(in, ones);
+            int max = in.getInt();
+            long searched = in.getLong();
+            boards[n]++;
+            positions[n] += searched;
+            histogram[n][Math.min(max, 255)]++;
+            if (max >= printMin) {
+              System.out.printf("%d max %s searched %d\n", max, ones[n].coordsString(), searched);
+            }
+          }
+          in.compact();
+        }
+      } catch (IOException e) {
+        e.printStackTrace();
+        System.exit(1);
+      }
+    }
+    for (int n = 1; n <= MAX_ONES; n++) {
+      if (boards[n] == 0) {
+        continue;
+      }
+      System.out.printf("n %d initial boards: %d searched positions: %d\n", n, boards[n], positions[n]);
+      for (int max = 0; max < 256; max++) {
+        if (histogram[n][max] > 0) {
+          System.out.printf("  max %3d boards %d\n", max, histogram[n][max]);
+        }
+      }
+    }
+  }
+
+  static void encode(ByteBuffer out, SteppingOnes ones) {
+    int n = ones.ones.length;
+    if (n > MAX_ONES) {
+      throw new IllegalArgumentException("too many ones for a result record: " + n);
+    }
+    out.put((byte) n);
+    for (int i = 0; i < MAX_ONES; i++) {
+      int row = i < n ? SteppingOnes.row(ones.ones[i]) : 0;
+      int col = i < n ? SteppingOnes.col(ones.ones[i]) : 0;
+      if (row > 255 || col > 255) {
+        throw new IllegalArgumentException("coordinates out of range for a result record: " + ones.coordsString());
+      }
+      out.put((byte) row);
+      out.put((byte) col);
+    }
+    out.put((byte) 0);
+  }
+
+  // decodes the ones of the next record into the reused ones[n], returns n
+  static int decode(ByteBuffer in, SteppingOnes[] ones) {
+    int n = in.get();
+    int[] o = ones[n].ones;
+    for (int i = 0; i < MAX_ONES; i++) {
+      int row = in.get() & 0xff;
+      int col = in.get() & 0xff;
+      if (i < n) {
+        o[i] = SteppingOnes.pos(row, col);
+      }
+    }
+    in.get();
+    return n;
+  }
+}
@@ -36,6 +36,9 @@ public class SteppingStone {
     if (args.length > 1) {
       ips.noSearch = args[1].equals("no");
     }
+    if (args.length > 2 && args[1].equals("out")) {
+      ips.resultsPath = args[2];
+    }
 
     int maxFound = inputSearch ? ips.inputSearch(inputSearchCaching) :  ips.search();
 
@@ -54,6 +57,9 @@ class InitialPlacementSearch {
   int n;
   int[] positions;
   int maxFound;
+  String resultsPath;
+  ResultsWriter results;
+  SteppingOnes ones; // current input line, for results
   public InitialPlacementSearch(int n) {
     this.n = n;
     positions = new int[n];
@@ -103,12 +109,20 @@ class InitialPlacementSearch {
         e.printStackTrace();
         return -1;
       }
+      SteppingOnes seed = ones;
       exec.execute(() -> {
         b.search(2);
         synchronized (InitialPlacementSearch.this) {
           maxFound = Math.max(maxFound, b.maxFound);
           searchedPositions += b.searchedPositions;
           maxPositionsPerBoard = Math.max(maxPositionsPerBoard, b.searchedPositions);
+          if (results != null && seed != null) {
+            try {
+              results.write(seed, b.boardMax, b.searchedPositions);
+            } catch (IOException e) {
+              e.printStackTrace();
+            }
+          }
           available.release();
         }
       });
@@ -133,6 +147,14 @@ class InitialPlacementSearch {
   }
 
   int inputSearch(boolean caching) {
+    if (resultsPath != null) {
+      try {
+        results = new ResultsWriter(resultsPath);
+      } catch (IOException e) {
+        e.printStackTrace();
+        return -1;
+      }
+    }
     BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
     while (true) {
       String line;
@@ -145,23 +167,28 @@ class InitialPlacementSearch {
       if (line == null) {
         break;
       }
-      SteppingOnes ones = new SteppingOnes(line);
+      ones = new SteppingOnes(line);
       //ones.printCoords();
       n = ones.ones.length;
       if (positions.length != n) {
         positions = new int[n];
       }
+      // just the seed plus the proven growth bound, instead of 100x100
+      int margin = Board2.margin(100);
+      side = Math.max(ones.maxRow(), ones.maxCol()) + 1 + 2 * margin;
       for (int i = 0; i < n; i++) {
         int pos = ones.ones[i];
-        positions[i] = (20 + SteppingOnes.row(pos)) * side + 20 + SteppingOnes.col(pos);
+        positions[i] = (margin + SteppingOnes.row(pos)) * side + margin + SteppingOnes.col(pos);
       }
       search(n);
-      // TODO: print line + max for line!
     }
     exec.shutdown();
     try {
       exec.awaitTermination(1000, TimeUnit.DAYS);
-    } catch (InterruptedException e) {
+      if (results != null) {
+        results.close();
+      }
+    } catch (InterruptedException | IOException e) {
       e.printStackTrace();
       return -1;
     }
@@ -188,174 +215,3 @@ class InitialPlacementSearch {
     }
   }
 }
-
-class Board {
-  public Board(int rows, int cols, int max) {
-    this.rows = rows;
-    this.cols = cols;
-    this.min = 2;
-    this.max = max;
-    size = rows * cols;
-    stride = cols;
-    deltas = new int[]{-stride - 1, -stride, -stride + 1, -1, 0, 1, stride - 1, stride, stride + 1};
-    board = new int[size];
-    counts = new int[size];
-    candPrev = new int[size + max + 1];
-    candNext = new int[size + max + 1];
-    for (int i = 0; i <= max; i++) {
-      candPrev[size + i] = size + i;
-      candNext[size + i] = size + i;
-    }
-  }
-
-  int rows, cols, size, stride;
-  int[] deltas;
-  int[] board;
-  int[] counts;
-
-  int[] candPrev;
-  int[] candNext;
-
-  int min, max, maxFound;
-  long searchedPositions;
-
-  int pos(int row, int col) {
-    return row * stride + col;
-  }
-
-  int midPos(int dr, int dc) {
-    return pos(rows / 2 + dr, cols / 2 + dc);
-  }
-  int midRow(int pos) {
-    return pos / stride - rows / 2;
-  }
-  int midCol(int pos) {
-    return pos % stride - cols / 2;
-  }
-
-  // place value at pos, use negative value to remove
-  void place(int pos, int value) {
-    for (int delta : deltas) {
-      int neigh = pos + delta;
-      if (board[neigh] == 0) {
-        unlink(neigh);
-      }
-    }
-    board[pos] += value;
-    for (int delta : deltas) {
-      int neigh = pos + delta;
-      counts[neigh] += value;
-      if (board[neigh] == 0) {
-        link(neigh);
-      }
-    }
-    //System.out.printf("place %d,%d %d\n", midRow(pos), midCol(pos), value);
-    //print();
-  }
-
-  void unlink(int pos) {
-    int count = counts[pos];
-    if (count < min || count > max) {
-      return;
-    }
-    candNext[candPrev[pos]] = candNext[pos];
-    candPrev[candNext[pos]] = candPrev[pos];
-  }
-
-  void link(int pos) {
-    int count = counts[pos];
-    if (count < min || count > max) {
-      return;
-    }
-    candPrev[pos] = size + count;
-    candNext[pos] = candNext[size + count];
-    candPrev[candNext[pos]] = pos;
-    candNext[size + count] = pos;
-  }
-
-  void print() {
-    print(false);
-  }
-
-  void print(boolean withCounts) {
-      int minRow = rows, minCol = cols, maxRow = 0, maxCol = 0;
-    for (int row = 0; row < rows; row++) {
-      for (int col = 0; col < cols; col++) {
-        int pos = pos(row, col);
-        if (board[pos] > 0) {
-          minRow = Math.min(minRow, row);
-          minCol = Math.min(minCol, col);
-          maxRow = Math.max(maxRow, row);
-          maxCol = Math.max(maxCol, col);
-        }
-      }
-    }
-    for (int row = minRow; row <= maxRow; row++) {
-      for (int col = minCol; col <= maxCol; col++) {
-        int pos = pos(row, col);
-        if (board[pos] > 0) {
-          System.out.printf("%3d", board[pos]);
-        } else {
-          System.out.printf("   ");
-        }
-      }
-      System.out.println();
-    }
-    /*
-    for (int row = minRow - 1; row <= maxRow + 1; row++) {
-      for (int col = minCol - 1; col <= maxCol + 1; col++) {
-        int pos = pos(row, col);
-        System.out.printf("%3d", counts[pos]);
-      }
-      System.out.println();
-    }
-    */
-    for (int count = 0; count < max; count++) {
-      if (candNext[size + count] == size + count) {
-        continue;
-      }
-      if (withCounts) {
-        System.out.printf("count %d", count);
-      }
-      for (int pos = candNext[size + count]; pos < size; pos = candNext[pos]) {
-        if (withCounts) {
-          System.out.printf(" %d,%d", midRow(pos), midCol(pos));
-        }
-        // FIXME: always check!
-        if (counts[pos] != count && count >= min) {
-          System.out.printf("!WRONG_COUNT(%d)", counts[pos]);
-        }
-      }
-      if (withCounts) {
-        System.out.println();
-      }
-    }
-  }
-
-  int search(int from) {
-    int numCandidates = 0;
-    for (int pos = candNext[size + from]; pos < size; pos = candNext[pos]) {
-      numCandidates++;
-    }
-    //System.out.printf("search %d candidates %d\n", from, numCandidates);
-    int[] candidates = new int[numCandidates];
-    for (int i = 0, pos = candNext[size + from]; pos < size; pos = candNext[pos]) {
-      candidates[i++] = pos;
-    }
-    for (int pos : candidates) {
-      maxFound = Math.max(maxFound, from);
-      min = 2; //from + 1;
-      place(pos, from);
-      searchedPositions++;
-      if (from == maxFound) {
-        print();
-        System.out.println(from);
-      }
-      search(from + 1);
-      min = 2; //from + 1;
-      place(pos, -from);
-      //print();
-    }
-    return maxFound;
-  }
-}
@@ -0,0 +1,49 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// summary of a run over a range of the seeds, written by SteppingStone2 --summary FILE.
+//
+// text, one "key value" per line:
+//   range START END     initial board indexes [START, END) of the seed stream
+//   max M
+//   boards B            initial boards searched
+//   positions P         searched positions
+//   maxPerBoard Q
+//   best M COORDS       one line per initial board reaching the max
+//
+// usage: java SteppingSummary FILE..
+// merges shard summaries into one summary of the global max, totals and best
+// boards, on stdout, and warns about gaps and overlaps between the ranges.
+//
+// e.g. 4 processes on one box:
+//   for i in 0 1 2 3; do java SteppingStone2 --seeds s7.bin --shard $i/4 --summary s7-$i.txt & done; wait
+//   java SteppingSummary s7-*.txt
+public class SteppingSummary {
+  public static void main(String[] args) {
+    List<Summary> summaries = new ArrayList<>();
+    try {
+      for (String path : args) {
+        summaries.add(Summary.read(path));
+      }
+    } catch (IOException | RuntimeException e) {
+      e.printStackTrace();
+      System.exit(1);
+    }
+    summaries.sort(Comparator.comparingLong(s -> s.start));
+    Summary total = new Summary();
+    if (!summaries.isEmpty()) {
+      total.start = total.end = summaries.get(0).start;
+    }
+    for (Summary s : summaries) {
+      if (s.start > total.end) {
+        System.err.printf("gap: boards %d..%d are in no summary\n", total.end, s.start);
+      } else if (s.start < total.end) {
+        System.err.printf("overlap: boards %d..%d are in more than one summary\n", s.start, Math.min(s.end, total.end));
+      }
+      total.merge(s);
+    }
+    total.write(System.out);
+  }
+}
@@ -0,0 +1,91 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+class Summary {
+  long start, end;
+  volatile int max;
+  long boards, positions, maxPerBoard;
+  List<String> best = new ArrayList<>();
+
+  // keeps the boards reaching the max so far
+  synchronized void addBest(int max, String coords) {
+    if (max > this.max) {
+      this.max = max;
+      best.clear();
+    }
+    if (max == this.max) {
+      best.add(coords);
+    }
+  }
+
+  void merge(Summary s) {
+    start = Math.min(start, s.start);
+    end = Math.max(end, s.end);
+    if (s.max > max) {
+      max = s.max;
+      best.clear();
+    }
+    if (s.max == max) {
+      best.addAll(s.best);
+    }
+    boards += s.boards;
+    positions += s.positions;
+    maxPerBoard = Math.max(maxPerBoard, s.maxPerBoard);
+  }
+
+  void write(PrintStream out) {
+    out.printf("range %d %d\n", start, end);
+    out.printf("max %d\n", max);
+    out.printf("boards %d\n", boards);
+    out.printf("positions %d\n", positions);
+    out.printf("maxPerBoard %d\n", maxPerBoard);
+    for (String coords : best) {
+      out.printf("best %d %s\n", max, coords);
+    }
+  }
+
+  void write(String path) throws IOException {
+    try (PrintStream out = new PrintStream(Files.newOutputStream(Paths.get(path)))) {
+      write(out);
+    }
+  }
+
+  static Summary read(String path) throws IOException {
+    Summary s = new Summary();
+    for (String line : Files.readAllLines(Paths.get(path))) {
+      String[] f = line.split(" ", 2);
+      switch (f[0]) {
+        case "range":
+          String[] range = f[1].split(" ");
+          s.start = Long.parseLong(range[0]);
+          s.end = Long.parseLong(range[1]);
+          break;
+        case "max":
+          s.max = Integer.parseInt(f[1]);
+          break;
+        case "boards":
+          s.boards = Long.parseLong(f[1]);
+          break;
+        case "positions":
+          s.positions = Long.parseLong(f[1]);
+          break;
+        case "maxPerBoard":
+          s.maxPerBoard = Long.parseLong(f[1]);
+          break;
+        case "best":
+          String[] best = f[1].split(" ", 2);
+          if (Integer.parseInt(best[0]) == s.max) {
+            s.best.add(best[1]);
+          }
+          break;
+        default:
+          throw new IOException(path + ": unknown summary line " + line);
+      }
+    }
+    return s;
+  }
+}
@@ -0,0 +1,83 @@
+// Board2 with a transposition table. the search from a state only depends on
+// which cells are taken and on the counts of the empty ones, not on the values
+// that made those counts, so it is hashed as that (zobrist style, kept up to date
+// in place()). a state found in the table with a best value <= maxFound cannot
+// improve this board and is skipped; one with a higher best is searched again,
+// so maxFound and bestBoard() stay exact.
+class TranspositionBoard2 extends Board2 {
+  final TranspositionTable table;
+  // random keys by row and col, so boards of every size hash a state alike
+  long[] taken, empty;
+  long[] countKeys; // 0 for counts that don't matter: 0 and > max
+  long hash;
+  int reached; // highest value placed in the current subtree
+
+  public TranspositionBoard2(int rows, int cols, int max, TranspositionTable table) {
+    super(rows, cols, max);
+    this.table = table;
+    taken = new long[size];
+    empty = new long[size];
+    for (int pos = 0; pos < size; pos++) {
+      taken[pos] = mix(1L << 40 | (long) row(pos) << 20 | col(pos));
+      empty[pos] = mix(2L << 40 | (long) row(pos) << 20 | col(pos));
+    }
+    countKeys = new long[max + 1];
+    for (int count = 1; count <= max; count++) {
+      countKeys[count] = mix(3L << 40 | count) | 1;
+    }
+  }
+
+  // splitmix64 finalizer
+  static long mix(long z) {
+    z += 0x9e3779b97f4a7c15L;
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+
+  long key(int pos, int count) {
+    return count > max ? 0 : empty[pos] * countKeys[count];
+  }
+
+  @Override
+  void reset() {
+    super.reset();
+    hash = 0;
+    reached = 0;
+  }
+
+  // the same xors take a stone off again
+  @Override
+  void place(int pos, int value) {
+    for (int delta : deltas) {
+      int neigh = pos + delta;
+      if (board[neigh] == 0) {
+        hash ^= key(neigh, counts[neigh]) ^ key(neigh, counts[neigh] + value);
+      }
+    }
+    hash ^= taken[pos] ^ key(pos, counts[pos]);
+    super.place(pos, value);
+    reached = Math.max(reached, value);
+  }
+
+  @Override
+  int search(int from) {
+    transpositionProbes++;
+    long key = hash ^ countKeys[from];
+    int stored = table.get(key, from);
+    if (stored >= 0 && stored <= maxFound) {
+      transpositions++;
+      reached = Math.max(reached, stored); // the skipped subtree still counts for what the parent stores
+      return maxFound;
+    }
+    int outer = reached;
+    reached = from - 1;
+    super.search(from);
+    // a split frame's subtree is searched elsewhere in parts, so not stored
+    if (from > splitUntil) {
+      table.put(key, from, reached);
+    }
+    reached = Math.max(outer, reached);
+    return maxFound;
+  }
+}
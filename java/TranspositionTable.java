@@ -0,0 +1,47 @@
+// fixed size, lock-free transposition table: key -> (from, best value reached).
+//
+// buckets of two entries: the first keeps the entry with the deeper subtree
+// (best - from), the second takes whatever the first didn't. every entry is two
+// longs, key ^ data and data, written without locks; a torn or raced entry
+// doesn't xor back to its key and reads as a miss (hyatt's lockless hashing).
+class TranspositionTable {
+  static final int ENTRY_BYTES = 16;
+
+  final long[] slots;
+  final int mask; // of bucket indexes
+
+  public TranspositionTable(long bytes) {
+    long buckets = Long.highestOneBit(Math.max(1, bytes / (2 * ENTRY_BYTES)));
+    buckets = Math.min(buckets, 1 << 26);
+    slots = new long[(int) buckets * 4];
+    mask = (int) buckets - 1;
+  }
+
+  static long data(int from, int best) {
+    return 1L << 32 | from << 8 | best;
+  }
+
+  // best value reached from the state key at from, or -1
+  int get(long key, int from) {
+    int i = ((int) key & mask) << 2;
+    for (int k = 0; k < 4; k += 2) {
+      long data = slots[i + k + 1];
+      if ((slots[i + k] ^ data) == key && data != 0 && (int) (data >>> 8 & 0xff) == from) {
+        return (int) (data & 0xff);
+      }
+    }
+    return -1;
+  }
+
+  void put(long key, int from, int best) {
+    int i = ((int) key & mask) << 2;
+    long old = slots[i + 1];
+    int oldDepth = old == 0 ? -1 : (int) (old & 0xff) - (int) (old >>> 8 & 0xff);
+    if (best - from < oldDepth) {
+      i += 2;
+    }
+    long data = data(from, best);
+    slots[i] = key ^ data;
+    slots[i + 1] = data;
+  }
+}
@@ -0,0 +1,106 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+// bounded multi-producer multi-consumer ring buffer (dmitry vyukov's bounded
+// mpmc queue): every slot carries a sequence number saying whether it is free
+// for the producer of round k or filled for the consumer of round k, so producers
+// and consumers only compete on one cas each and never take a lock.
+// put() spins, then backs off with growing parks, while full. consumers poll() and
+// back off themselves (InitialPlacement2.work()), as they also wait for split jobs.
+class WorkQueue<T> {
+  static final int SPINS = 100;
+  static final long MAX_PARK_NANOS = 1_000_000;
+
+  final int mask;
+  final AtomicLongArray sequence;
+  final Object[] items;
+  final AtomicLong tail = new PaddedAtomicLong(), head = new PaddedAtomicLong();
+  volatile boolean closed;
+
+  public WorkQueue(int capacity) {
+    if (Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+    }
+    mask = capacity - 1;
+    sequence = new AtomicLongArray(capacity);
+    for (int i = 0; i < capacity; i++) {
+      sequence.set(i, i);
+    }
+    items = new Object[capacity];
+  }
+
+  // false if full
+  boolean offer(T item) {
+    long pos = tail.get();
+    while (true) {
+      int slot = (int) pos & mask;
+      long diff = sequence.get(slot) - pos;
+      if (diff == 0) {
+        if (tail.compareAndSet(pos, pos + 1)) {
+          items[slot] = item;
+          sequence.lazySet(slot, pos + 1);
+          return true;
+        }
+        pos = tail.get();
+      } else if (diff < 0) {
+        return false;
+      } else {
+        pos = tail.get();
+      }
+    }
+  }
+
+  // null if empty
+  @SuppressWarnings("unchecked")
+  T poll() {
+    long pos = head.get();
+    while (true) {
+      int slot = (int) pos & mask;
+      long diff = sequence.get(slot) - (pos + 1);
+      if (diff == 0) {
+        if (head.compareAndSet(pos, pos + 1)) {
+          T item = (T) items[slot];
+          items[slot] = null;
+          sequence.lazySet(slot, pos + mask + 1);
+          return item;
+        }
+        pos = head.get();
+      } else if (diff < 0) {
+        return null;
+      } else {
+        pos = head.get();
+      }
+    }
+  }
+
+  void put(T item) {
+    for (int tries = 0; !offer(item); tries++) {
+      backoff(tries);
+    }
+  }
+
+  // no item now, as far as this thread can tell
+  boolean isEmpty() {
+    return head.get() >= tail.get();
+  }
+
+  // no more put()s
+  void close() {
+    closed = true;
+  }
+
+  static void backoff(int tries) {
+    if (tries < SPINS) {
+      Thread.onSpinWait();
+    } else {
+      LockSupport.parkNanos(Math.min(MAX_PARK_NANOS, 1000L << Math.min(tries - SPINS, 10)));
+    }
+  }
+
+  // long enough that producers and consumers don't share a cache line
+  @SuppressWarnings("serial")
+  static class PaddedAtomicLong extends AtomicLong {
+    long p1, p2, p3, p4, p5, p6, p7;
+  }
+}